@@ -0,0 +1,145 @@
+package com.suko.pool;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Base class for the fixed-capacity pools that can serve as stripes of a
+ * {@link StripedObjectPool}. Declares no fields so that subclasses control their own layout.
+ *
+ * @param <T> the type of objects to pool
+ */
+abstract class BoundedPool<T> implements Pool<T> {
+
+    /** Returned by {@link #pollOnce()} when another thread won the race for the slot. */
+    static final Object CONTENDED = new Object();
+
+    /** Results of {@link #offerOnce(Object)}. */
+    static final int OFFER_STORED = 0, OFFER_FULL = 1, OFFER_CONTENDED = 2;
+
+    /**
+     * Returns the number of slots in the pool.
+     *
+     * @return the pool capacity
+     */
+    public abstract int capacity();
+
+    /**
+     * Fills the empty slots of the pool with newly created objects on the given executor. The
+     * pool stays fully usable while the warm-up runs; it stops once the pool is full or a full
+     * pool's worth of objects has been created.
+     *
+     * @param executor the executor that runs the factory
+     * @return a future that completes when the warm-up has finished
+     */
+    public CompletableFuture<Void> warmUp(Executor executor) {
+        return CompletableFuture.runAsync(this::fill, executor);
+    }
+
+    void fill() {
+        // Check for room before creating, so a full pool costs no factory call; an object
+        // that still loses the last slot to a concurrent release is left to the GC
+        for (int i = capacity(); i > 0 && !isFull(); i--) {
+            if (!offer(newObject())) {
+                return; // Pool is full
+            }
+        }
+    }
+
+    /**
+     * Takes the given percentage of the currently pooled objects out of the pool, leaving
+     * them to the GC. The capacity is unchanged, so releases fill the pool again. Used to
+     * give memory back under heap pressure.
+     *
+     * @param percent the share of pooled objects to remove, 1-100
+     * @return the number of objects removed
+     */
+    public int trim(int percent) {
+        int count = (int) ((long) occupancy() * Math.min(100, Math.max(0, percent)) / 100);
+        int removed = 0;
+        while (removed < count && tryAcquire() != null) {
+            removed++;
+        }
+        return removed;
+    }
+
+    /**
+     * Rejects a batch to release that contains null. Checked before anything is released, so
+     * a rejected batch leaves the pool unchanged.
+     *
+     * @throws IllegalArgumentException if {@code src[0, count)} contains null
+     */
+    static void checkNoNulls(Object[] src, int count) {
+        for (int i = 0; i < count; i++) {
+            if (src[i] == null) {
+                throw new IllegalArgumentException("Cannot release null");
+            }
+        }
+    }
+
+    /**
+     * Returns whether the pool holds no objects. Reads both ends with volatile semantics, so a
+     * store completed before the call is always seen.
+     */
+    abstract boolean isEmpty();
+
+    /**
+     * Returns whether every slot of the pool holds an object.
+     */
+    abstract boolean isFull();
+
+    /**
+     * Returns an estimate of the number of pooled objects, for load balancing between stripes.
+     * The default only tells empty, full and in between apart.
+     */
+    int occupancy() {
+        return isEmpty() ? 0 : isFull() ? capacity() : capacity() >>> 1;
+    }
+
+    /**
+     * Creates a new object through the pool's factory.
+     */
+    abstract T newObject();
+
+    /**
+     * Returns an object to the pool without resetting it.
+     *
+     * @return true if the object was stored, false if the pool is full
+     */
+    abstract boolean offer(T object);
+
+    /**
+     * Like {@link #tryAcquire()}, but gives up with {@link #CONTENDED} instead of retrying when
+     * a CAS is lost, so a striped caller can move on to a less contended stripe. Pools without
+     * a contended CAS on this path simply delegate.
+     *
+     * @return a pooled object, null if the pool is empty, or {@link #CONTENDED}
+     */
+    Object pollOnce() {
+        return tryAcquire();
+    }
+
+    /**
+     * Like {@link #offer(Object)}, but gives up with {@link #OFFER_CONTENDED} instead of
+     * retrying when a CAS is lost.
+     *
+     * @return {@link #OFFER_STORED}, {@link #OFFER_FULL} or {@link #OFFER_CONTENDED}
+     */
+    int offerOnce(T object) {
+        return offer(object) ? OFFER_STORED : OFFER_FULL;
+    }
+
+    /**
+     * Acquires up to {@code max} pooled objects into {@code dst[offset, offset + max)}.
+     *
+     * @return the number of objects stored
+     */
+    abstract int acquireBatchInto(T[] dst, int offset, int max);
+
+    /**
+     * Releases {@code src[offset, offset + count)} without resetting.
+     *
+     * @return the number of objects returned to the pool
+     */
+    abstract int releaseBatchFrom(T[] src, int offset, int count);
+}
@@ -0,0 +1,102 @@
+package com.suko.pool;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Follows an exponentially weighted moving average of the miss rate, sampled over fixed
+ * windows: grows by one stripe while the average is above {@code growAbove} and retires one
+ * while it is below {@code shrinkBelow}. A short burst of misses moves the average only a
+ * little, so the pool neither chases every spike nor waits for a fixed miss count that a
+ * burst may overshoot many times over.
+ */
+public final class EwmaGrowthPolicy implements GrowthPolicy {
+    private final long windowNanos;
+    private final double alpha;
+    private final double growAbove;
+    private final double shrinkBelow;
+    private final int minStripes;
+    private final int maxStripes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    // Only touched by decide()
+    private long windowStartNanos = System.nanoTime();
+    private double missRate = -1; // Negative until the first window closes
+
+    /**
+     * @param windowMillis how long each miss-rate sample covers
+     * @param alpha the weight of the newest sample, in (0, 1]
+     * @param growAbove grow while the average miss rate is above this fraction of acquires
+     * @param shrinkBelow shrink while the average miss rate is below this fraction; 0 never shrinks
+     * @param minStripes the fewest stripes to shrink to
+     * @param maxStripes the most stripes to grow to (0 = unbounded)
+     */
+    public EwmaGrowthPolicy(int windowMillis, double alpha, double growAbove, double shrinkBelow,
+                            int minStripes, int maxStripes) {
+        if (!(alpha > 0 && alpha <= 1)) {
+            throw new IllegalArgumentException("Alpha must be in (0, 1]");
+        }
+        if (shrinkBelow > growAbove) {
+            throw new IllegalArgumentException("Shrink threshold cannot exceed grow threshold");
+        }
+        this.windowNanos = Math.max(1, windowMillis) * 1_000_000L;
+        this.alpha = alpha;
+        this.growAbove = growAbove;
+        this.shrinkBelow = shrinkBelow;
+        this.minStripes = Math.max(1, minStripes);
+        this.maxStripes = maxStripes; // <=0 means unbounded
+    }
+
+    @Override
+    public void onHit(int count) {
+        hits.add(count);
+    }
+
+    @Override
+    public void onMiss() {
+        misses.increment();
+    }
+
+    @Override
+    public void onRelease(int count) {
+    }
+
+    @Override
+    public void onDrop(int count) {
+    }
+
+    @Override
+    public GrowthDecision decide(int stripeCount) {
+        long now = System.nanoTime();
+        if (now - windowStartNanos < windowNanos) {
+            return GrowthDecision.HOLD;
+        }
+        windowStartNanos = now;
+        long windowMisses = misses.sumThenReset();
+        long windowAcquires = windowMisses + hits.sumThenReset();
+        if (windowAcquires == 0) {
+            return GrowthDecision.HOLD; // Idle; nothing to learn from
+        }
+
+        double sample = (double) windowMisses / windowAcquires;
+        missRate = missRate < 0 ? sample : alpha * sample + (1 - alpha) * missRate;
+
+        if (missRate > growAbove && (maxStripes <= 0 || stripeCount < maxStripes)) {
+            return GrowthDecision.grow(1);
+        }
+        if (missRate < shrinkBelow && stripeCount > minStripes) {
+            return GrowthDecision.shrink(1);
+        }
+        return GrowthDecision.HOLD;
+    }
+
+    /**
+     * Returns the current average miss rate.
+     *
+     * @return the fraction of acquires that missed, or -1 before the first window closed
+     */
+    public double missRate() {
+        return missRate;
+    }
+}
@@ -0,0 +1,141 @@
+package com.suko.pool;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntConsumer;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+/**
+ * Listens for garbage collection notifications and reports the old generation's occupancy
+ * when a collection leaves it at or above the configured threshold after the previous one
+ * left it below. Collections that keep it above, such as the many young collections between
+ * two old ones, do not report again, so pools are trimmed once per crossing rather than on
+ * every collection.
+ *
+ * <p>The old generation is every heap memory pool that supports a usage threshold (the
+ * tenured pool of each collector; eden and survivor spaces do not), and its occupancy is read
+ * from the memory usage after the collection carried by the notification, so only the
+ * {@code java.management} module is needed. The callback runs on the JVM's notification
+ * thread.
+ */
+final class GcTrimmer implements NotificationListener {
+
+    /** Type of the notifications sent by the collectors after each collection. */
+    static final String GC_NOTIFICATION = "com.sun.management.gc.notification";
+
+    private final int thresholdPercent;
+    private final IntConsumer onPressure;
+    private final Set<String> oldGenPools;
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private boolean above;
+
+    GcTrimmer(int thresholdPercent, IntConsumer onPressure) {
+        this(thresholdPercent, onPressure, oldGenPoolNames());
+    }
+
+    GcTrimmer(int thresholdPercent, IntConsumer onPressure, Set<String> oldGenPools) {
+        this.thresholdPercent = thresholdPercent;
+        this.onPressure = onPressure;
+        this.oldGenPools = oldGenPools;
+    }
+
+    private static Set<String> oldGenPoolNames() {
+        Set<String> names = new HashSet<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported()) {
+                names.add(pool.getName());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Subscribes to every collector that emits notifications.
+     */
+    void start() {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter) {
+                NotificationEmitter emitter = (NotificationEmitter) gc;
+                emitter.addNotificationListener(this, null, null);
+                emitters.add(emitter);
+            }
+        }
+    }
+
+    void stop() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(this);
+            } catch (ListenerNotFoundException e) {
+                // Already gone
+            }
+        }
+        emitters.clear();
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (!GC_NOTIFICATION.equals(notification.getType())
+                || !(notification.getUserData() instanceof CompositeData)) {
+            return;
+        }
+        int percent = oldGenPercent((CompositeData) notification.getUserData());
+        if (percent >= 0) {
+            afterCollection(percent);
+        }
+    }
+
+    /**
+     * Reacts to the old-generation occupancy left by one collection: reports it if it crossed
+     * the threshold upwards, and arms the next report once it falls back below.
+     *
+     * @param percent used old generation as a percentage of its maximum
+     */
+    synchronized void afterCollection(int percent) {
+        boolean wasAbove = above;
+        above = percent >= thresholdPercent;
+        if (above && !wasAbove) {
+            onPressure.accept(percent);
+        }
+    }
+
+    /**
+     * Reads the old-generation occupancy from a collection notification's payload.
+     *
+     * @return the occupancy percentage, or -1 if the payload has no old-generation pool
+     */
+    private int oldGenPercent(CompositeData info) {
+        if (!info.containsKey("gcInfo")) {
+            return -1;
+        }
+        CompositeData gcInfo = (CompositeData) info.get("gcInfo");
+        if (gcInfo == null || !gcInfo.containsKey("memoryUsageAfterGc")) {
+            return -1;
+        }
+        TabularData after = (TabularData) gcInfo.get("memoryUsageAfterGc");
+        long used = 0;
+        long limit = 0;
+        for (Object row : after.values()) {
+            CompositeData entry = (CompositeData) row;
+            if (!oldGenPools.contains(entry.get("key"))) {
+                continue;
+            }
+            MemoryUsage usage = MemoryUsage.from((CompositeData) entry.get("value"));
+            used += usage.getUsed();
+            limit += usage.getMax() > 0 ? usage.getMax() : usage.getCommitted();
+        }
+        return limit > 0 ? (int) (used * 100 / limit) : -1;
+    }
+}
@@ -0,0 +1,55 @@
+package com.suko.pool;
+
+/**
+ * What a {@link GrowthPolicy} asks a {@link StripedObjectPool} to do with its stripe count.
+ */
+public final class GrowthDecision {
+
+    /**
+     * The kind of change requested by a {@link GrowthDecision}.
+     */
+    public enum Action {
+        /** Leave the pool as it is. */
+        HOLD,
+        /** Add stripes. */
+        GROW,
+        /** Retire stripes. */
+        SHRINK
+    }
+
+    public static final GrowthDecision HOLD = new GrowthDecision(Action.HOLD, 0);
+
+    public final Action action;
+    public final int stripes;
+
+    private GrowthDecision(Action action, int stripes) {
+        this.action = action;
+        this.stripes = stripes;
+    }
+
+    /**
+     * Adds the given number of stripes.
+     *
+     * @param stripes the number of stripes to add
+     * @return the decision
+     */
+    public static GrowthDecision grow(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Stripes to add must be positive");
+        }
+        return new GrowthDecision(Action.GROW, stripes);
+    }
+
+    /**
+     * Retires the given number of stripes; the pool always keeps at least one.
+     *
+     * @param stripes the number of stripes to remove
+     * @return the decision
+     */
+    public static GrowthDecision shrink(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Stripes to remove must be positive");
+        }
+        return new GrowthDecision(Action.SHRINK, stripes);
+    }
+}
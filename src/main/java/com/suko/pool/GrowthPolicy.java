@@ -0,0 +1,51 @@
+package com.suko.pool;
+
+/**
+ * Decides when a {@link StripedObjectPool} adds or retires stripes. The pool reports what
+ * happens to it through the {@code on*} methods and asks for a {@link #decide(int)} after each
+ * miss and on every maintenance tick.
+ *
+ * <p>The signal methods are called concurrently from every thread that uses the pool, on its
+ * hot path, and must be cheap and thread-safe. {@link #decide(int)} and {@link #onTick()} are
+ * never called concurrently with themselves or each other.
+ *
+ * <p>Shipped policies: {@link ThresholdGrowthPolicy} (the {@link AutoGrowConfig} behaviour),
+ * {@link EwmaGrowthPolicy} and {@link TargetHitRatioGrowthPolicy}.
+ */
+public interface GrowthPolicy {
+
+    /**
+     * Called after {@code count} pooled objects were acquired.
+     */
+    void onHit(int count);
+
+    /**
+     * Called when an acquire found every stripe empty, before {@link #decide(int)}.
+     */
+    void onMiss();
+
+    /**
+     * Called after {@code count} objects were stored in the stripes.
+     */
+    void onRelease(int count);
+
+    /**
+     * Called after {@code count} released objects were dropped because every stripe was full.
+     */
+    void onDrop(int count);
+
+    /**
+     * Called on each tick of a maintenance task, if the pool has one, before
+     * {@link #decide(int)}.
+     */
+    default void onTick() {
+    }
+
+    /**
+     * Returns what the pool should do now.
+     *
+     * @param stripeCount the current number of stripes
+     * @return the decision, never null
+     */
+    GrowthDecision decide(int stripeCount);
+}
@@ -0,0 +1,312 @@
+package com.suko.pool;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/*
+ * Field layout for LifoObjectPool, padded the same way as ObjectPool: read-only fields, the
+ * top of the object stack and the top of the free-slot stack each get their own cache lines.
+ */
+abstract class LifoObjectPoolPad0<T> extends BoundedPool<T> {
+    int p16; // Fills the gap after a compressed object header so no subclass field lands there
+    long p00, p01, p02, p03;
+    long p04, p05, p06, p07;
+    long p08, p09, p10, p11;
+    long p12, p13, p14, p15;
+}
+
+abstract class LifoObjectPoolFields<T> extends LifoObjectPoolPad0<T> {
+    final Object[] elements;
+    final int[] next;
+    final Supplier<T> factory;
+    final Consumer<T> resetAction;
+
+    LifoObjectPoolFields(Supplier<T> factory, Consumer<T> resetAction, int poolSize) {
+        this.elements = new Object[poolSize];
+        this.next = new int[poolSize];
+        this.factory = factory;
+        this.resetAction = resetAction;
+    }
+}
+
+abstract class LifoObjectPoolPad1<T> extends LifoObjectPoolFields<T> {
+    long p00, p01, p02, p03;
+    long p04, p05, p06, p07;
+    long p08, p09, p10, p11;
+    long p12, p13, p14, p15;
+
+    LifoObjectPoolPad1(Supplier<T> factory, Consumer<T> resetAction, int poolSize) {
+        super(factory, resetAction, poolSize);
+    }
+}
+
+abstract class LifoObjectPoolTop<T> extends LifoObjectPoolPad1<T> {
+    @SuppressWarnings("unused") // Used by VarHandle
+    volatile long top;
+
+    LifoObjectPoolTop(Supplier<T> factory, Consumer<T> resetAction, int poolSize) {
+        super(factory, resetAction, poolSize);
+    }
+}
+
+abstract class LifoObjectPoolPad2<T> extends LifoObjectPoolTop<T> {
+    long p00, p01, p02, p03;
+    long p04, p05, p06, p07;
+    long p08, p09, p10, p11;
+    long p12, p13, p14, p15;
+
+    LifoObjectPoolPad2(Supplier<T> factory, Consumer<T> resetAction, int poolSize) {
+        super(factory, resetAction, poolSize);
+    }
+}
+
+abstract class LifoObjectPoolFree<T> extends LifoObjectPoolPad2<T> {
+    @SuppressWarnings("unused") // Used by VarHandle
+    volatile long free;
+
+    LifoObjectPoolFree(Supplier<T> factory, Consumer<T> resetAction, int poolSize) {
+        super(factory, resetAction, poolSize);
+    }
+}
+
+abstract class LifoObjectPoolPad3<T> extends LifoObjectPoolFree<T> {
+    long p00, p01, p02, p03;
+    long p04, p05, p06, p07;
+    long p08, p09, p10, p11;
+    long p12, p13, p14, p15;
+
+    LifoObjectPoolPad3(Supplier<T> factory, Consumer<T> resetAction, int poolSize) {
+        super(factory, resetAction, poolSize);
+    }
+}
+
+/**
+ * A bounded, lock-free MPMC object pool that hands out the most recently released object
+ * first, so reused objects are likely still in the releasing core's cache.
+ *
+ * <p>Slots live in a fixed array and are threaded onto two index-linked Treiber stacks: one of
+ * slots holding objects and one of free slots. Each stack top packs a slot index with a
+ * version tag that is bumped on every CAS, which makes the stacks ABA-safe. Acquire pops an
+ * occupied slot and pushes it onto the free stack; release does the opposite. Batches move a
+ * whole chain of slots with one CAS per stack.
+ *
+ * @param <T> the type of objects to pool
+ */
+public class LifoObjectPool<T> extends LifoObjectPoolPad3<T> implements Pool<T> {
+    private static final VarHandle TOP, FREE;
+    private static final int EMPTY = -1;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            TOP = l.findVarHandle(LifoObjectPoolTop.class, "top", long.class);
+            FREE = l.findVarHandle(LifoObjectPoolFree.class, "free", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    public LifoObjectPool(Supplier<T> factory, Consumer<T> resetAction, int size) {
+        this(factory, resetAction, size, Prefill.EAGER);
+    }
+
+    /**
+     * Creates a pool that is either pre-populated or starts empty.
+     *
+     * @param factory the factory for creating new objects
+     * @param resetAction the action to reset objects before returning to pool (may be null)
+     * @param size the pool size (will be rounded up to power of 2)
+     * @param prefill whether to create all objects now or leave the slots empty
+     */
+    public LifoObjectPool(Supplier<T> factory, Consumer<T> resetAction, int size, Prefill prefill) {
+        super(factory, resetAction, nextPowerOfTwo(size));
+        int poolSize = elements.length;
+
+        if (prefill == Prefill.LAZY) {
+            // Empty: every slot is on the free stack
+            for (int i = 0; i < poolSize; i++) {
+                next[i] = i + 1 < poolSize ? i + 1 : EMPTY;
+            }
+            TOP.setVolatile(this, tagged(EMPTY, 0L));
+            FREE.setVolatile(this, tagged(0, 0L));
+            return;
+        }
+
+        // Pre-populate: every slot is on the object stack, slot 0 on top
+        for (int i = 0; i < poolSize; i++) {
+            elements[i] = factory.get();
+            next[i] = i + 1 < poolSize ? i + 1 : EMPTY;
+        }
+        FREE.setVolatile(this, tagged(EMPTY, 0L));
+        TOP.setVolatile(this, tagged(0, 0L));
+    }
+
+    public T acquire() {
+        T object = tryAcquire();
+        return object != null ? object : factory.get();
+    }
+
+    /**
+     * Attempts to acquire the most recently released object without allocating.
+     *
+     * @return a pooled object or null if the pool is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T tryAcquire() {
+        long chain = popChain(TOP, 1);
+        if (chain == 0L) {
+            return null; // Pool is empty
+        }
+        int slot = (int) chain;
+        T object = (T) elements[slot];
+        elements[slot] = null;
+        pushChain(FREE, slot, slot);
+        return object;
+    }
+
+    public boolean release(T object) {
+        if (resetAction != null) {
+            resetAction.accept(object);
+        }
+        return offer(object);
+    }
+
+    T newObject() {
+        return factory.get();
+    }
+
+    boolean isEmpty() {
+        return (int) (long) TOP.getVolatile(this) == EMPTY;
+    }
+
+    boolean isFull() {
+        return (int) (long) FREE.getVolatile(this) == EMPTY;
+    }
+
+    boolean offer(T object) {
+        long chain = popChain(FREE, 1);
+        if (chain == 0L) {
+            return false; // Pool is full
+        }
+        int slot = (int) chain;
+        elements[slot] = object;
+        pushChain(TOP, slot, slot);
+        return true;
+    }
+
+    public int acquireBatch(T[] dst, int max) {
+        return acquireBatchInto(dst, 0, Math.min(max, dst.length));
+    }
+
+    public int releaseBatch(T[] src, int count) {
+        int limit = Math.min(count, src.length);
+        if (resetAction != null) {
+            for (int i = 0; i < limit; i++) {
+                resetAction.accept(src[i]);
+            }
+        }
+        return releaseBatchFrom(src, 0, limit);
+    }
+
+    @SuppressWarnings("unchecked")
+    int acquireBatchInto(T[] dst, int offset, int max) {
+        int acquired = 0;
+        while (acquired < max) {
+            long chain = popChain(TOP, max - acquired);
+            if (chain == 0L) {
+                break; // Pool is empty
+            }
+            int count = (int) (chain >>> 32);
+            int first = (int) chain;
+            int slot = first;
+            int last = first;
+            for (int i = 0; i < count; i++) {
+                dst[offset + acquired++] = (T) elements[slot];
+                elements[slot] = null;
+                last = slot;
+                slot = next[slot];
+            }
+            pushChain(FREE, first, last);
+        }
+        return acquired;
+    }
+
+    int releaseBatchFrom(T[] src, int offset, int count) {
+        int released = 0;
+        while (released < count) {
+            long chain = popChain(FREE, count - released);
+            if (chain == 0L) {
+                break; // Pool is full
+            }
+            int length = (int) (chain >>> 32);
+            int first = (int) chain;
+            int slot = first;
+            int last = first;
+            for (int i = 0; i < length; i++) {
+                elements[slot] = src[offset + released++];
+                last = slot;
+                slot = next[slot];
+            }
+            pushChain(TOP, first, last);
+        }
+        return released;
+    }
+
+    /**
+     * Returns the number of slots in the pool.
+     *
+     * @return the pool capacity
+     */
+    public int capacity() {
+        return elements.length;
+    }
+
+    /**
+     * Detaches up to {@code max} linked slots from the top of a stack with one CAS.
+     *
+     * @return the chain length in the high 32 bits and its first slot in the low 32 bits,
+     *         or 0 if the stack is empty
+     */
+    private long popChain(VarHandle stack, int max) {
+        while (true) {
+            long current = (long) stack.getVolatile(this);
+            int first = (int) current;
+            if (first == EMPTY) {
+                return 0L;
+            }
+            // Links may be stale if another thread wins the race; the tagged CAS then fails
+            int count = 1;
+            int after = next[first];
+            while (count < max && after != EMPTY) {
+                after = next[after];
+                count++;
+            }
+            if (stack.compareAndSet(this, current, tagged(after, current))) {
+                return ((long) count << 32) | first;
+            }
+        }
+    }
+
+    /**
+     * Pushes the owned chain {@code first .. last} onto a stack with one CAS.
+     */
+    private void pushChain(VarHandle stack, int first, int last) {
+        while (true) {
+            long current = (long) stack.getVolatile(this);
+            next[last] = (int) current;
+            if (stack.compareAndSet(this, current, tagged(first, current))) {
+                return;
+            }
+        }
+    }
+
+    private static long tagged(int slot, long previous) {
+        return (((previous >>> 32) + 1) << 32) | (slot & 0xFFFFFFFFL);
+    }
+
+    private static int nextPowerOfTwo(int n) {
+        return 1 << (32 - Integer.numberOfLeadingZeros(n - 1));
+    }
+}
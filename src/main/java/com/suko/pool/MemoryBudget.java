@@ -0,0 +1,230 @@
+package com.suko.pool;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Memory limits for the auto-growing of a striped object pool. Growth stops once the pool's
+ * capacity times the size of one object would exceed {@code maxPoolBytes}, or while heap
+ * occupancy is at or above {@code maxHeapPercent}; at or above {@code shedHeapPercent} the
+ * pool retires a stripe on each growth evaluation instead.
+ *
+ * <p>Heap occupancy estimates the live heap, not everything allocated, as a percentage of
+ * the maximum heap, and is read only when a growth decision is evaluated. The plain used heap
+ * counts garbage that has not been collected yet, so a full eden alone would veto growth on
+ * an idle heap. Instead, the young pools (eden and survivor spaces) count with their usage
+ * after the most recent collection, which holds only objects that survived it. The old
+ * generation (the heap pools that support a usage threshold) counts with its current usage:
+ * its post-collection usage is only updated by old collections, which may never run, while
+ * what has been promoted since has at least survived the young collections.
+ */
+public final class MemoryBudget {
+    public final long bytesPerObject;
+    public final long maxPoolBytes;
+    public final int maxHeapPercent;
+    public final int shedHeapPercent;
+
+    /** How many references deep {@link #estimateBytes(Object)} counts objects as owned. */
+    static final int OWNED_DEPTH = 3;
+
+    private final IntSupplier heapPercent;
+
+    /**
+     * @param bytesPerObject the owned size of one pooled object, see {@link #estimateBytes(Object)}
+     * @param maxPoolBytes the most memory the pool's capacity may account for (0 = unbounded)
+     * @param maxHeapPercent do not grow while heap occupancy is at or above this percentage
+     * @param shedHeapPercent retire stripes while heap occupancy is at or above this percentage
+     *        (0 = never)
+     */
+    public MemoryBudget(long bytesPerObject, long maxPoolBytes, int maxHeapPercent, int shedHeapPercent) {
+        this(bytesPerObject, maxPoolBytes, maxHeapPercent, shedHeapPercent, MemoryBudget::heapOccupancy);
+    }
+
+    MemoryBudget(long bytesPerObject, long maxPoolBytes, int maxHeapPercent, int shedHeapPercent,
+                 IntSupplier heapPercent) {
+        if (bytesPerObject <= 0) {
+            throw new IllegalArgumentException("Bytes per object must be positive");
+        }
+        if (shedHeapPercent > 0 && shedHeapPercent < maxHeapPercent) {
+            throw new IllegalArgumentException("Shed threshold cannot be below the growth threshold");
+        }
+        this.bytesPerObject = bytesPerObject;
+        this.maxPoolBytes = Math.max(0, maxPoolBytes);
+        this.maxHeapPercent = Math.min(100, Math.max(1, maxHeapPercent));
+        this.shedHeapPercent = Math.max(0, shedHeapPercent);
+        this.heapPercent = heapPercent;
+    }
+
+    /**
+     * Returns the current heap occupancy.
+     *
+     * @return the estimated live heap as a percentage of the maximum (or, if unbounded,
+     *         committed) heap
+     */
+    public int heapPercent() {
+        return heapPercent.getAsInt();
+    }
+
+    /**
+     * Returns the most objects the pool may have capacity for.
+     *
+     * @return the capacity limit, or {@link Integer#MAX_VALUE} if unbounded
+     */
+    public int maxCapacity() {
+        return maxPoolBytes == 0 ? Integer.MAX_VALUE : (int) Math.min(Integer.MAX_VALUE, maxPoolBytes / bytesPerObject);
+    }
+
+    private static int heapOccupancy() {
+        long live = 0;
+        for (MemoryPoolMXBean pool : HeapPools.POOLS) {
+            MemoryUsage usage = pool.isUsageThresholdSupported() ? pool.getUsage() : pool.getCollectionUsage();
+            if (usage != null) {
+                live += usage.getUsed();
+            }
+        }
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        long limit = heap.getMax() > 0 ? heap.getMax() : heap.getCommitted();
+        return limit > 0 ? (int) Math.min(100, live * 100 / limit) : 0;
+    }
+
+    /** The heap memory pools, looked up once on first use. */
+    private static final class HeapPools {
+        static final List<MemoryPoolMXBean> POOLS = new ArrayList<>();
+
+        static {
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    POOLS.add(pool);
+                }
+            }
+        }
+    }
+
+    /**
+     * Estimates the owned size of a sample object: the object plus its arrays and the objects
+     * its fields reference, followed at most three references deep, assuming a
+     * 64-bit JVM with compressed references (12-byte object headers, 16-byte array headers,
+     * 4-byte references, 8-byte alignment). The depth bound keeps references to large shared
+     * structures, such as a registry or a cache, from being counted in full. Objects whose
+     * fields cannot be read, such as JDK internals, count with their own fields but are not
+     * followed; class objects and enum constants are not counted.
+     *
+     * @param sample a typical pooled object
+     * @return the estimated size in bytes
+     */
+    public static long estimateBytes(Object sample) {
+        return owned(sample, Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
+    /**
+     * Like {@link #estimateBytes(Object)}, but creates two objects with the factory and counts
+     * only what the first does not share with the second, so objects handed to every instance
+     * (configuration, codecs, interned strings) are left out.
+     *
+     * @param factory the pool's factory
+     * @return the estimated size in bytes
+     */
+    public static long estimateOwnedBytes(Supplier<?> factory) {
+        Object sample = factory.get();
+        Set<Object> shared = Collections.newSetFromMap(new IdentityHashMap<>());
+        owned(factory.get(), shared);
+        return owned(sample, shared);
+    }
+
+    /**
+     * Sums the sizes of the objects within {@link #OWNED_DEPTH} references of {@code root}
+     * that are not in {@code seen}, adding them to it.
+     */
+    private static long owned(Object root, Set<Object> seen) {
+        ArrayDeque<Object> pending = new ArrayDeque<>();
+        ArrayDeque<Integer> depths = new ArrayDeque<>();
+        pending.push(root);
+        depths.push(0);
+        long total = 0;
+        while (!pending.isEmpty()) {
+            Object obj = pending.pop();
+            int depth = depths.pop();
+            if (obj instanceof Class || obj instanceof Enum || !seen.add(obj)) {
+                continue;
+            }
+            boolean follow = depth < OWNED_DEPTH;
+            Class<?> type = obj.getClass();
+            if (type.isArray()) {
+                Class<?> component = type.getComponentType();
+                int length = Array.getLength(obj);
+                total += align(16 + (long) length * slotBytes(component));
+                if (follow && !component.isPrimitive()) {
+                    for (int i = 0; i < length; i++) {
+                        Object element = Array.get(obj, i);
+                        if (element != null) {
+                            pending.push(element);
+                            depths.push(depth + 1);
+                        }
+                    }
+                }
+                continue;
+            }
+            long size = 12;
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    size += slotBytes(field.getType());
+                    if (follow && !field.getType().isPrimitive()) {
+                        Object value = read(field, obj);
+                        if (value != null) {
+                            pending.push(value);
+                            depths.push(depth + 1);
+                        }
+                    }
+                }
+            }
+            total += align(size);
+        }
+        return total;
+    }
+
+    private static Object read(Field field, Object obj) {
+        try {
+            field.setAccessible(true);
+            return field.get(obj);
+        } catch (RuntimeException | IllegalAccessException e) {
+            return null; // Not open to us; count the reference only
+        }
+    }
+
+    private static int slotBytes(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return 4; // Compressed reference
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
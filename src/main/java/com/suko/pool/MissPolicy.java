@@ -0,0 +1,141 @@
+package com.suko.pool;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * What {@code acquire()} does when the pool has no object to hand out. The default,
+ * {@link #ALLOCATE}, creates a new object; the other policies let a pool enforce a hard budget
+ * on the number of live objects of its type without wrapping every call site.
+ *
+ * <p>{@code tryAcquire()}, the batch methods and {@code acquire(timeout, unit)} never allocate
+ * and are not affected by the policy.
+ */
+public final class MissPolicy {
+
+    /**
+     * The behaviour selected by a {@link MissPolicy}.
+     */
+    public enum Action {
+        /** Create a new object with the pool's factory. */
+        ALLOCATE,
+        /** Return null, as {@code tryAcquire()} does. */
+        RETURN_NULL,
+        /** Wait for a release; throw {@link IllegalStateException} if none arrives in time. */
+        BLOCK,
+        /** Throw {@link IllegalStateException}. */
+        THROW,
+        /**
+         * Allocate while fewer than the limit of objects created on a miss are alive, then throw
+         * {@link IllegalStateException}. Objects dropped on release because the pool is full
+         * no longer count towards the limit.
+         */
+        ALLOCATE_UP_TO_LIMIT
+    }
+
+    public static final MissPolicy ALLOCATE = new MissPolicy(Action.ALLOCATE, 0, 0);
+    public static final MissPolicy RETURN_NULL = new MissPolicy(Action.RETURN_NULL, 0, 0);
+    public static final MissPolicy THROW = new MissPolicy(Action.THROW, 0, 0);
+
+    public final Action action;
+    public final long timeoutNanos;
+    public final int allocationLimit;
+
+    private MissPolicy(Action action, long timeoutNanos, int allocationLimit) {
+        this.action = action;
+        this.timeoutNanos = timeoutNanos;
+        this.allocationLimit = allocationLimit;
+    }
+
+    /**
+     * Waits up to the given time for a release, then throws {@link IllegalStateException}.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of {@code timeout}
+     * @return the policy
+     */
+    public static MissPolicy block(long timeout, TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Timeout cannot be negative");
+        }
+        return new MissPolicy(Action.BLOCK, unit.toNanos(timeout), 0);
+    }
+
+    /**
+     * Allocates on a miss while fewer than {@code limit} objects created on a miss are alive,
+     * then throws {@link IllegalStateException}. Objects created by prefill or warm-up do not
+     * count.
+     *
+     * @param limit the maximum number of live objects created on a miss
+     * @return the policy
+     */
+    public static MissPolicy allocateUpTo(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Allocation limit cannot be negative");
+        }
+        return new MissPolicy(Action.ALLOCATE_UP_TO_LIMIT, 0, limit);
+    }
+
+    /**
+     * Handles a miss in {@code acquire()}.
+     *
+     * @param factory the pool's factory
+     * @param waiters the pool's waiter queue, used by {@link Action#BLOCK}
+     * @param allocated the pool's count of live objects created on a miss
+     * @return the object to hand out, or null for {@link Action#RETURN_NULL}
+     */
+    <T> T onMiss(Supplier<T> factory, Waiters<T> waiters, AtomicInteger allocated) {
+        switch (action) {
+            case ALLOCATE:
+                return factory.get();
+            case RETURN_NULL:
+                return null;
+            case BLOCK:
+                T object;
+                try {
+                    object = waiters.await(timeoutNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for a pooled object", e);
+                }
+                if (object == null) {
+                    throw new IllegalStateException("No pooled object released within "
+                        + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms");
+                }
+                return object;
+            case ALLOCATE_UP_TO_LIMIT:
+                int current;
+                do {
+                    current = allocated.get();
+                    if (current >= allocationLimit) {
+                        throw new IllegalStateException("Pool exhausted: allocation limit of "
+                            + allocationLimit + " reached");
+                    }
+                } while (!allocated.compareAndSet(current, current + 1));
+                return factory.get();
+            case THROW:
+            default:
+                throw new IllegalStateException("Pool exhausted");
+        }
+    }
+
+    /**
+     * Records objects dropped on release because the pool was full.
+     *
+     * @param allocated the pool's count of live objects created on a miss
+     * @param count the number of dropped objects
+     */
+    void onDrop(AtomicInteger allocated, int count) {
+        if (action != Action.ALLOCATE_UP_TO_LIMIT) {
+            return;
+        }
+        int current;
+        do {
+            current = allocated.get();
+            if (current == 0) {
+                return;
+            }
+        } while (!allocated.compareAndSet(current, Math.max(0, current - count)));
+    }
+}
@@ -0,0 +1,136 @@
+package com.suko.pool;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A bounded ring pool for any number of releasing threads and exactly one acquiring thread,
+ * e.g. workers returning objects to the thread that owns them.
+ *
+ * <p>Releasers claim a position with a CAS on {@code tail} and publish the object into its slot
+ * with a release store. The single acquirer never uses CAS: it takes the published slot at
+ * {@code head} and advances {@code head} with a release store.
+ *
+ * <p>Acquiring from more than one thread at a time corrupts the pool.
+ *
+ * @param <T> the type of objects to pool
+ */
+public class MpscObjectPool<T> extends RingPool<T> implements Pool<T> {
+
+    public MpscObjectPool(Supplier<T> factory, Consumer<T> resetAction, int size) {
+        this(factory, resetAction, size, Prefill.EAGER);
+    }
+
+    /**
+     * Creates a pool that is either pre-populated or starts empty.
+     *
+     * @param factory the factory for creating new objects
+     * @param resetAction the action to reset objects before returning to pool (may be null)
+     * @param size the pool size (will be rounded up to power of 2)
+     * @param prefill whether to create all objects now or leave the slots empty
+     */
+    public MpscObjectPool(Supplier<T> factory, Consumer<T> resetAction, int size, Prefill prefill) {
+        super(factory, resetAction, size, prefill);
+    }
+
+    /**
+     * Attempts to acquire an object without allocating. If a releaser has claimed the head
+     * position but not yet published its object, this briefly spins for it.
+     *
+     * @return a pooled object or null if the pool is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T tryAcquire() {
+        long currentHead = (long) HEAD.getOpaque(this);
+        int index = (int) (currentHead & mask);
+        Object object = SLOT.getAcquire(buffer, index);
+        if (object == null) {
+            if (currentHead >= (long) TAIL.getVolatile(this)) {
+                return null; // Pool is empty
+            }
+            do {
+                Thread.onSpinWait(); // Release claimed but not yet published
+                object = SLOT.getAcquire(buffer, index);
+            } while (object == null);
+        }
+        buffer[index] = null;
+        HEAD.setRelease(this, currentHead + 1);
+        return (T) object;
+    }
+
+    boolean offer(T object) {
+        if (object == null) {
+            return false; // The acquirer would wait forever for the slot to be published
+        }
+        long currentTail = claim(1);
+        if (currentTail < 0) {
+            return false; // Pool is full
+        }
+        SLOT.setRelease(buffer, (int) (currentTail & mask), object);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    int acquireBatchInto(T[] dst, int offset, int max) {
+        long currentHead = (long) HEAD.getOpaque(this);
+        int n = 0;
+        while (n < max) {
+            int index = (int) ((currentHead + n) & mask);
+            Object object = SLOT.getAcquire(buffer, index);
+            if (object == null) {
+                break; // Empty, or the next release is still in flight
+            }
+            dst[offset + n] = (T) object;
+            buffer[index] = null;
+            n++;
+        }
+        if (n > 0) {
+            HEAD.setRelease(this, currentHead + n);
+        }
+        return n;
+    }
+
+    int releaseBatchFrom(T[] src, int offset, int count) {
+        count = nonNullPrefix(src, offset, count);
+        while (true) {
+            long currentTail = (long) TAIL.getVolatile(this);
+            long free = buffer.length - (currentTail - (long) HEAD_CACHE.getAcquire(this));
+            if (free < count) {
+                HEAD_CACHE.setRelease(this, (long) HEAD.getAcquire(this));
+                free = buffer.length - (currentTail - (long) HEAD_CACHE.getAcquire(this));
+            }
+            int n = (int) Math.min(count, free);
+            if (n <= 0) {
+                return 0; // Pool is full
+            }
+            if (TAIL.compareAndSet(this, currentTail, currentTail + n)) {
+                for (int i = 0; i < n; i++) {
+                    SLOT.setRelease(buffer, (int) ((currentTail + i) & mask), src[offset + i]);
+                }
+                return n;
+            }
+        }
+    }
+
+    /**
+     * Claims {@code n} consecutive positions at the tail.
+     *
+     * @return the first claimed position, or -1 if the pool is full
+     */
+    private long claim(int n) {
+        while (true) {
+            long currentTail = (long) TAIL.getVolatile(this);
+            if (currentTail + n - (long) HEAD_CACHE.getAcquire(this) > buffer.length) {
+                // Refresh the shared view of head before deciding the pool is full; release/acquire
+                // on the cache carries the consumer's slot clearing over to other producers
+                HEAD_CACHE.setRelease(this, (long) HEAD.getAcquire(this));
+                if (currentTail + n - (long) HEAD_CACHE.getAcquire(this) > buffer.length) {
+                    return -1L;
+                }
+            }
+            if (TAIL.compareAndSet(this, currentTail, currentTail + n)) {
+                return currentTail;
+            }
+        }
+    }
+}
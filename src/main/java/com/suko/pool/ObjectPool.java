@@ -2,128 +2,578 @@ package com.suko.pool;
 
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
-public class ObjectPool<T> implements Pool<T> {
-    private static final VarHandle HEAD, TAIL;
-    
+/*
+ * Field layout for ObjectPool. Superclass fields are laid out before subclass fields, so this
+ * hierarchy keeps the read-only fields, head and tail on cache lines of their own without
+ * relying on @Contended (which needs -XX:-RestrictContended outside the JDK). Each pad is
+ * 128 bytes to also defeat adjacent-line prefetching.
+ */
+abstract class ObjectPoolPad0<T> extends BoundedPool<T> {
+    int p16; // Fills the gap after a compressed object header so no subclass field lands there
+    long p00, p01, p02, p03;
+    long p04, p05, p06, p07;
+    long p08, p09, p10, p11;
+    long p12, p13, p14, p15;
+}
+
+abstract class ObjectPoolFields<T> extends ObjectPoolPad0<T> {
+    final Object[] pool;
+    final long[] sequences;
+    final int mask;
+    final Supplier<T> factory;
+    final Consumer<T> resetAction;
+    final Waiters<T> waiters;
+    final AtomicInteger missAllocations = new AtomicInteger();
+    volatile MissPolicy missPolicy = MissPolicy.ALLOCATE;
+    final AtomicLong dropped = new AtomicLong();
+    volatile Consumer<? super T> dropHandler;
+
+    ObjectPoolFields(Supplier<T> factory, Consumer<T> resetAction, int poolSize) {
+        this.pool = new Object[poolSize];
+        this.sequences = new long[poolSize];
+        this.mask = poolSize - 1;
+        this.factory = factory;
+        this.resetAction = resetAction;
+        this.waiters = new Waiters<>(this::tryAcquire, this::offer, this::drop);
+    }
+
+    abstract void drop(T object);
+}
+
+abstract class ObjectPoolPad1<T> extends ObjectPoolFields<T> {
+    long p00, p01, p02, p03;
+    long p04, p05, p06, p07;
+    long p08, p09, p10, p11;
+    long p12, p13, p14, p15;
+
+    ObjectPoolPad1(Supplier<T> factory, Consumer<T> resetAction, int poolSize) {
+        super(factory, resetAction, poolSize);
+    }
+}
+
+abstract class ObjectPoolHead<T> extends ObjectPoolPad1<T> {
+    @SuppressWarnings("unused") // Used by VarHandle
+    volatile long head;
+
+    ObjectPoolHead(Supplier<T> factory, Consumer<T> resetAction, int poolSize) {
+        super(factory, resetAction, poolSize);
+    }
+}
+
+abstract class ObjectPoolPad2<T> extends ObjectPoolHead<T> {
+    long p00, p01, p02, p03;
+    long p04, p05, p06, p07;
+    long p08, p09, p10, p11;
+    long p12, p13, p14, p15;
+
+    ObjectPoolPad2(Supplier<T> factory, Consumer<T> resetAction, int poolSize) {
+        super(factory, resetAction, poolSize);
+    }
+}
+
+abstract class ObjectPoolTail<T> extends ObjectPoolPad2<T> {
+    @SuppressWarnings("unused") // Used by VarHandle
+    volatile long tail;
+
+    ObjectPoolTail(Supplier<T> factory, Consumer<T> resetAction, int poolSize) {
+        super(factory, resetAction, poolSize);
+    }
+}
+
+abstract class ObjectPoolPad3<T> extends ObjectPoolTail<T> {
+    long p00, p01, p02, p03;
+    long p04, p05, p06, p07;
+    long p08, p09, p10, p11;
+    long p12, p13, p14, p15;
+
+    ObjectPoolPad3(Supplier<T> factory, Consumer<T> resetAction, int poolSize) {
+        super(factory, resetAction, poolSize);
+    }
+}
+
+/**
+ * A bounded, lock-free MPMC object pool backed by a sequence-stamped ring buffer.
+ *
+ * <p>Every slot carries a sequence number that tells producers and consumers whether the
+ * slot is ready for them at a given ring position (Vyukov bounded MPMC queue). A single CAS
+ * on {@code head} or {@code tail} claims a position, and the slot's sequence is published
+ * with release semantics only after the element has been written or cleared, so an acquirer
+ * can never observe a slot that a releaser has claimed but not yet filled.
+ *
+ * <p>{@code head}, {@code tail} and the read-only fields each live on their own cache lines,
+ * so acquiring and releasing threads do not false-share, and neighbouring pools (for example
+ * the stripes of a {@link StripedObjectPool}) do not share lines with each other.
+ *
+ * <p>The ring has at least two slots: with a single slot, the sequence a consumer leaves
+ * behind equals the one a producer publishes, and a full pool could not be told from an
+ * empty one.
+ *
+ * @param <T> the type of objects to pool
+ */
+public class ObjectPool<T> extends ObjectPoolPad3<T> implements Pool<T> {
+    private static final VarHandle HEAD, TAIL, SEQUENCE;
+
     static {
         try {
             MethodHandles.Lookup l = MethodHandles.lookup();
-            HEAD = l.findVarHandle(ObjectPool.class, "head", long.class);
-            TAIL = l.findVarHandle(ObjectPool.class, "tail", long.class);
+            HEAD = l.findVarHandle(ObjectPoolHead.class, "head", long.class);
+            TAIL = l.findVarHandle(ObjectPoolTail.class, "tail", long.class);
+            SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
         } catch (ReflectiveOperationException e) {
             throw new ExceptionInInitializerError(e);
         }
     }
-    
-    private final Object[] pool;
-    private final int mask;
-    private final Supplier<T> factory;
-    private final Consumer<T> resetAction;
-    
-    @SuppressWarnings("unused") // Used by VarHandle
-    private volatile long head = 0L;
-    @SuppressWarnings("unused") // Used by VarHandle  
-    private volatile long tail;
-    
+
     public ObjectPool(Supplier<T> factory, Consumer<T> resetAction, int size) {
-        int poolSize = nextPowerOfTwo(size);
-        this.pool = new Object[poolSize];
-        this.mask = poolSize - 1;
-        this.factory = factory;
-        this.resetAction = resetAction;
-        
-        // Pre-populate
+        this(factory, resetAction, size, Prefill.EAGER);
+    }
+
+    /**
+     * Creates a pool that is either pre-populated or starts empty.
+     *
+     * @param factory the factory for creating new objects
+     * @param resetAction the action to reset objects before returning to pool (may be null)
+     * @param size the pool size (will be rounded up to power of 2, at least 2)
+     * @param prefill whether to create all objects now or leave the slots empty
+     */
+    public ObjectPool(Supplier<T> factory, Consumer<T> resetAction, int size, Prefill prefill) {
+        super(factory, resetAction, Math.max(2, nextPowerOfTwo(size)));
+        int poolSize = pool.length;
+
+        if (prefill == Prefill.LAZY) {
+            // Empty: slot i is free for the producer of position i
+            for (int i = 0; i < poolSize; i++) {
+                sequences[i] = i;
+            }
+            TAIL.setVolatile(this, 0L);
+            return;
+        }
+
+        // Pre-populate: slot i holds the element for position i, ready to be consumed
         for (int i = 0; i < poolSize; i++) {
             pool[i] = factory.get();
+            sequences[i] = i + 1L;
         }
         TAIL.setVolatile(this, (long) poolSize);
     }
-    
-    @SuppressWarnings("unchecked")
+
+    /**
+     * Acquires an object from the pool, handling an empty pool according to the
+     * {@link MissPolicy} (by default, allocating a new object).
+     *
+     * @return a pooled object, a new object, or null under {@link MissPolicy#RETURN_NULL}
+     * @throws IllegalStateException if the miss policy refuses to hand out an object
+     */
     public T acquire() {
-        while (true) {
-            long currentHead = (long) HEAD.getVolatile(this);
-            long currentTail = (long) TAIL.getVolatile(this);
-            
-            if (currentHead >= currentTail) {
-                return factory.get();
-            }
-            
-            if (HEAD.compareAndSet(this, currentHead, currentHead + 1)) {
-                int index = (int) (currentHead & mask);
-                T object = (T) pool[index];
-                pool[index] = null;
-                return object;
-            }
-        }
+        T object = tryAcquire();
+        return object != null ? object : missPolicy.onMiss(factory, waiters, missAllocations);
     }
-    
+
     /**
      * Attempts to acquire an object from the pool without allocating.
-     * 
+     *
+     * <p>If a releaser has claimed the head position but not yet published its object, this
+     * briefly spins for it instead of reporting the pool as empty.
+     *
      * @return a pooled object or null if the pool is empty
      */
     @SuppressWarnings("unchecked")
     public T tryAcquire() {
+        return (T) poll(false);
+    }
+
+    Object pollOnce() {
+        return poll(true);
+    }
+
+    /**
+     * Takes the element at the head position.
+     *
+     * @param once whether to return {@link #CONTENDED} rather than retry after losing the slot
+     */
+    private Object poll(boolean once) {
+        long currentHead = (long) HEAD.getVolatile(this);
         while (true) {
-            long currentHead = (long) HEAD.getVolatile(this);
-            long currentTail = (long) TAIL.getVolatile(this);
-            
-            if (currentHead >= currentTail) {
-                return null; // Pool is empty
-            }
-            
-            if (HEAD.compareAndSet(this, currentHead, currentHead + 1)) {
-                int index = (int) (currentHead & mask);
-                T object = (T) pool[index];
-                pool[index] = null;
-                return object;
+            int index = (int) (currentHead & mask);
+            long sequence = (long) SEQUENCE.getAcquire(sequences, index);
+            long diff = sequence - (currentHead + 1);
+
+            if (diff == 0) {
+                if (HEAD.compareAndSet(this, currentHead, currentHead + 1)) {
+                    Object object = pool[index];
+                    pool[index] = null;
+                    // Hand the slot back to producers one lap ahead
+                    SEQUENCE.setRelease(sequences, index, currentHead + mask + 1);
+                    return object;
+                }
+                if (once) {
+                    return CONTENDED;
+                }
+                currentHead = (long) HEAD.getVolatile(this);
+            } else if (diff < 0) {
+                if (currentHead >= (long) TAIL.getVolatile(this)) {
+                    return null; // Pool is empty
+                }
+                Thread.onSpinWait(); // Release claimed but not yet published
+            } else {
+                if (once) {
+                    return CONTENDED;
+                }
+                currentHead = (long) HEAD.getVolatile(this); // Lost the slot to another consumer
             }
         }
     }
-    
+
+    /**
+     * Acquires a pooled object, waiting up to the given time for one to be released if the
+     * pool is empty. Never allocates. Waiters are served in arrival order, and releases hand
+     * objects to them directly.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of {@code timeout}
+     * @return a pooled object, or null if none was released in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public T acquire(long timeout, TimeUnit unit) throws InterruptedException {
+        T object = tryAcquire();
+        if (object != null) {
+            return object;
+        }
+        return waiters.await(unit.toNanos(timeout));
+    }
+
     public boolean release(T object) {
         if (resetAction != null) {
             resetAction.accept(object);
         }
-        
+        if (waiters.hasWaiters() && waiters.handOff(object)) {
+            return true;
+        }
+        boolean stored = offer(object);
+        if (waiters.hasWaiters()) {
+            waiters.transfer();
+        }
+        if (!stored) {
+            drop(object);
+        }
+        return stored;
+    }
+
+    /**
+     * Fills the empty slots like {@link BoundedPool#fill()}, handing new objects to threads
+     * parked in a timed acquire first, as a release would.
+     */
+    @Override
+    void fill() {
+        for (int i = capacity(); i > 0 && !isFull(); i--) {
+            T object = newObject();
+            if (waiters.hasWaiters() && waiters.handOff(object)) {
+                continue;
+            }
+            boolean stored = offer(object);
+            if (waiters.hasWaiters()) {
+                waiters.transfer();
+            }
+            if (!stored) {
+                return; // Pool is full
+            }
+        }
+    }
+
+    /**
+     * Accounts for an object that did not fit in the pool and passes it to the drop handler.
+     */
+    @Override
+    void drop(T object) {
+        dropped.incrementAndGet();
+        discard(object);
+    }
+
+    /**
+     * Lets go of an object that leaves the pool, passing it to the drop handler.
+     */
+    private void discard(T object) {
+        missPolicy.onDrop(missAllocations, 1);
+        Consumer<? super T> handler = dropHandler;
+        if (handler != null) {
+            handler.accept(object);
+        }
+    }
+
+    T newObject() {
+        return factory.get();
+    }
+
+    boolean isEmpty() {
+        return (long) HEAD.getVolatile(this) >= (long) TAIL.getVolatile(this);
+    }
+
+    boolean isFull() {
+        return (long) TAIL.getVolatile(this) - (long) HEAD.getVolatile(this) >= pool.length;
+    }
+
+    @Override
+    int occupancy() {
+        long size = (long) TAIL.getVolatile(this) - (long) HEAD.getVolatile(this);
+        return (int) Math.max(0, Math.min(size, pool.length)); // Racing updates can overshoot
+    }
+
+    boolean offer(T object) {
+        return push(object, false) == OFFER_STORED;
+    }
+
+    int offerOnce(T object) {
+        return push(object, true);
+    }
+
+    /**
+     * Stores an element at the tail position.
+     *
+     * @param once whether to return {@link #OFFER_CONTENDED} rather than retry after losing the slot
+     */
+    private int push(T object, boolean once) {
+        long currentTail = (long) TAIL.getVolatile(this);
         while (true) {
-            long currentTail = (long) TAIL.getVolatile(this);
-            long currentHead = (long) HEAD.getVolatile(this);
-            
-            if (currentTail - currentHead >= pool.length) {
-                return false;
+            int index = (int) (currentTail & mask);
+            long sequence = (long) SEQUENCE.getAcquire(sequences, index);
+            long diff = sequence - currentTail;
+
+            if (diff == 0) {
+                if (TAIL.compareAndSet(this, currentTail, currentTail + 1)) {
+                    pool[index] = object;
+                    // Publish the element to consumers
+                    SEQUENCE.setRelease(sequences, index, currentTail + 1);
+                    return OFFER_STORED;
+                }
+                if (once) {
+                    return OFFER_CONTENDED;
+                }
+                currentTail = (long) TAIL.getVolatile(this);
+            } else if (diff < 0) {
+                if (currentTail - (long) HEAD.getVolatile(this) >= pool.length) {
+                    return OFFER_FULL;
+                }
+                Thread.onSpinWait(); // Acquire claimed but slot not yet cleared
+            } else {
+                if (once) {
+                    return OFFER_CONTENDED;
+                }
+                currentTail = (long) TAIL.getVolatile(this); // Lost the slot to another producer
+            }
+        }
+    }
+
+    /**
+     * Acquires up to {@code max} pooled objects, claiming a run of published slots with a
+     * single CAS on {@code head}.
+     *
+     * @param dst the array to fill
+     * @param max the maximum number of objects to acquire
+     * @return the number of objects stored in {@code dst}
+     */
+    public int acquireBatch(T[] dst, int max) {
+        return acquireBatchInto(dst, 0, Math.min(max, dst.length));
+    }
+
+    @SuppressWarnings("unchecked")
+    int acquireBatchInto(T[] dst, int offset, int max) {
+        int acquired = 0;
+        long currentHead = (long) HEAD.getVolatile(this);
+        while (acquired < max) {
+            int want = Math.min(max - acquired, pool.length);
+            int n = 0;
+            while (n < want && (long) SEQUENCE.getAcquire(sequences, (int) ((currentHead + n) & mask)) == currentHead + n + 1) {
+                n++;
             }
-            
-            if (TAIL.compareAndSet(this, currentTail, currentTail + 1)) {
-                int index = (int) (currentTail & mask);
-                pool[index] = object;
-                return true;
+
+            if (n > 0) {
+                if (HEAD.compareAndSet(this, currentHead, currentHead + n)) {
+                    for (int i = 0; i < n; i++) {
+                        long position = currentHead + i;
+                        int index = (int) (position & mask);
+                        dst[offset + acquired++] = (T) pool[index];
+                        pool[index] = null;
+                        SEQUENCE.setRelease(sequences, index, position + mask + 1);
+                    }
+                    currentHead += n;
+                } else {
+                    currentHead = (long) HEAD.getVolatile(this);
+                }
+            } else {
+                long diff = (long) SEQUENCE.getAcquire(sequences, (int) (currentHead & mask)) - (currentHead + 1);
+                if (diff > 0) {
+                    currentHead = (long) HEAD.getVolatile(this); // Lost the slot to another consumer
+                } else if (currentHead >= (long) TAIL.getVolatile(this)) {
+                    break; // Pool is empty
+                } else {
+                    Thread.onSpinWait(); // Release claimed but not yet published
+                }
             }
         }
+        return acquired;
     }
-    
+
+    /**
+     * Releases the first {@code count} objects of {@code src}, claiming a run of free slots
+     * with a single CAS on {@code tail}.
+     *
+     * @param src the objects to release
+     * @param count the number of objects to release
+     * @return the number of objects returned to the pool; the rest were passed to the drop
+     *         handler, if any, and dropped
+     */
+    public int releaseBatch(T[] src, int count) {
+        int limit = Math.min(count, src.length);
+        if (resetAction != null) {
+            for (int i = 0; i < limit; i++) {
+                resetAction.accept(src[i]);
+            }
+        }
+        int handedOff = 0;
+        while (handedOff < limit && waiters.hasWaiters() && waiters.handOff(src[handedOff])) {
+            handedOff++;
+        }
+        int released = handedOff + releaseBatchFrom(src, handedOff, limit - handedOff);
+        if (waiters.hasWaiters()) {
+            waiters.transfer();
+        }
+        for (int i = released; i < limit; i++) {
+            drop(src[i]);
+        }
+        return released;
+    }
+
+    int releaseBatchFrom(T[] src, int offset, int count) {
+        int released = 0;
+        long currentTail = (long) TAIL.getVolatile(this);
+        while (released < count) {
+            int want = Math.min(count - released, pool.length);
+            int n = 0;
+            while (n < want && (long) SEQUENCE.getAcquire(sequences, (int) ((currentTail + n) & mask)) == currentTail + n) {
+                n++;
+            }
+
+            if (n > 0) {
+                if (TAIL.compareAndSet(this, currentTail, currentTail + n)) {
+                    for (int i = 0; i < n; i++) {
+                        long position = currentTail + i;
+                        int index = (int) (position & mask);
+                        pool[index] = src[offset + released++];
+                        SEQUENCE.setRelease(sequences, index, position + 1);
+                    }
+                    currentTail += n;
+                } else {
+                    currentTail = (long) TAIL.getVolatile(this);
+                }
+            } else {
+                long diff = (long) SEQUENCE.getAcquire(sequences, (int) (currentTail & mask)) - currentTail;
+                if (diff > 0) {
+                    currentTail = (long) TAIL.getVolatile(this); // Lost the slot to another producer
+                } else if (currentTail - (long) HEAD.getVolatile(this) >= pool.length) {
+                    break; // Pool is full
+                } else {
+                    Thread.onSpinWait(); // Acquire claimed but slot not yet cleared
+                }
+            }
+        }
+        return released;
+    }
+
+    /**
+     * Sets what {@link #acquire()} does when the pool is empty.
+     *
+     * @param policy the miss policy
+     */
+    public void setMissPolicy(MissPolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("Miss policy cannot be null");
+        }
+        this.missPolicy = policy;
+    }
+
+    /**
+     * Returns what {@link #acquire()} does when the pool is empty.
+     *
+     * @return the miss policy
+     */
+    public MissPolicy missPolicy() {
+        return missPolicy;
+    }
+
+    /**
+     * Sets a handler for objects released while the pool is full, for example to dispose of a
+     * native resource or to forward the object to an overflow pool. The handler runs on the
+     * releasing thread, only after the pool has been found full, and receives the already
+     * reset object.
+     *
+     * @param handler the drop handler, or null to leave dropped objects to the GC
+     */
+    public void setDropHandler(Consumer<? super T> handler) {
+        this.dropHandler = handler;
+    }
+
+    /**
+     * Takes the given percentage of the currently pooled objects out of the pool and passes
+     * them to the drop handler, if any, leaving them to the GC. Used to give memory back under
+     * heap pressure; trimmed objects do not count as dropped.
+     *
+     * @param percent the share of pooled objects to remove, 1-100
+     * @return the number of objects removed
+     */
+    @Override
+    public int trim(int percent) {
+        int count = (int) ((long) occupancy() * Math.min(100, Math.max(0, percent)) / 100);
+        int removed = 0;
+        T object;
+        while (removed < count && (object = tryAcquire()) != null) {
+            discard(object);
+            removed++;
+        }
+        return removed;
+    }
+
+    /**
+     * Returns the number of released objects that were dropped because the pool was full.
+     *
+     * @return the dropped-object count
+     */
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Returns the number of slots in the pool.
+     *
+     * @return the pool capacity
+     */
+    public int capacity() {
+        return pool.length;
+    }
+
     /**
      * Gets the current head value (for external inspection).
-     * 
+     *
      * @return the current head value
      */
     public long getHead() {
         return (long) HEAD.getVolatile(this);
     }
-    
+
     /**
      * Gets the current tail value (for external inspection).
-     * 
+     *
      * @return the current tail value
      */
     public long getTail() {
         return (long) TAIL.getVolatile(this);
     }
-    
+
     private static int nextPowerOfTwo(int n) {
         return 1 << (32 - Integer.numberOfLeadingZeros(n - 1));
     }
@@ -30,4 +30,43 @@ public interface Pool<T> {
      * @return true if successfully returned to the pool, false if dropped
      */
     boolean release(T obj);
+    
+    /**
+     * Acquires up to {@code max} pooled objects without allocating, storing them in
+     * {@code dst} starting at index 0.
+     * 
+     * @param dst the array to fill
+     * @param max the maximum number of objects to acquire
+     * @return the number of objects stored in {@code dst}
+     */
+    default int acquireBatch(T[] dst, int max) {
+        int limit = Math.min(max, dst.length);
+        int n = 0;
+        while (n < limit) {
+            T obj = tryAcquire();
+            if (obj == null) {
+                break;
+            }
+            dst[n++] = obj;
+        }
+        return n;
+    }
+    
+    /**
+     * Releases the first {@code count} objects of {@code src} back to the pool.
+     * 
+     * @param src the objects to release
+     * @param count the number of objects to release
+     * @return the number of objects returned to the pool; the rest were dropped
+     */
+    default int releaseBatch(T[] src, int count) {
+        int limit = Math.min(count, src.length);
+        int n = 0;
+        for (int i = 0; i < limit; i++) {
+            if (release(src[i])) {
+                n++;
+            }
+        }
+        return n;
+    }
 }
@@ -0,0 +1,85 @@
+package com.suko.pool;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Selects the bounded pool implementation used for a single pool or for each stripe of a
+ * {@link StripedObjectPool}.
+ */
+public enum PoolMode {
+
+    /**
+     * Sequence-stamped MPMC ring ({@link ObjectPool}). Hands out the least recently released
+     * object.
+     */
+    FIFO {
+        @Override
+        <T> BoundedPool<T> newStripe(Supplier<T> factory, Consumer<T> resetAction, int size, Prefill prefill) {
+            return new ObjectPool<>(factory, resetAction, size, prefill);
+        }
+    },
+
+    /**
+     * Tagged lock-free stack ({@link LifoObjectPool}). Hands out the most recently released,
+     * cache-warm object.
+     */
+    LIFO {
+        @Override
+        <T> BoundedPool<T> newStripe(Supplier<T> factory, Consumer<T> resetAction, int size, Prefill prefill) {
+            return new LifoObjectPool<>(factory, resetAction, size, prefill);
+        }
+    },
+
+    /**
+     * Single-producer/single-consumer ring ({@link SpscObjectPool}) with no CAS on either side.
+     * Only valid when exactly one thread releases and one thread acquires; for a striped pool
+     * that applies to the striped pool as a whole, and a concurrent {@code warmUp} counts as a
+     * releasing thread.
+     */
+    SPSC {
+        @Override
+        <T> BoundedPool<T> newStripe(Supplier<T> factory, Consumer<T> resetAction, int size, Prefill prefill) {
+            return new SpscObjectPool<>(factory, resetAction, size, prefill);
+        }
+    },
+
+    /**
+     * Multi-producer/single-consumer ring ({@link MpscObjectPool}): releases CAS, the single
+     * acquirer does not. Only valid when exactly one thread acquires; for a striped pool that
+     * applies to the striped pool as a whole.
+     */
+    MPSC {
+        @Override
+        <T> BoundedPool<T> newStripe(Supplier<T> factory, Consumer<T> resetAction, int size, Prefill prefill) {
+            return new MpscObjectPool<>(factory, resetAction, size, prefill);
+        }
+    };
+
+    /**
+     * Creates a pre-populated pool of this mode.
+     *
+     * @param factory the factory for creating new objects
+     * @param resetAction the action to reset objects before returning to pool (may be null)
+     * @param size the pool size (will be rounded up to power of 2)
+     * @return the new pool
+     */
+    public <T> Pool<T> newPool(Supplier<T> factory, Consumer<T> resetAction, int size) {
+        return newStripe(factory, resetAction, size, Prefill.EAGER);
+    }
+
+    /**
+     * Creates a pool of this mode that is either pre-populated or starts empty.
+     *
+     * @param factory the factory for creating new objects
+     * @param resetAction the action to reset objects before returning to pool (may be null)
+     * @param size the pool size (will be rounded up to power of 2)
+     * @param prefill whether to create all objects now or leave the slots empty
+     * @return the new pool
+     */
+    public <T> Pool<T> newPool(Supplier<T> factory, Consumer<T> resetAction, int size, Prefill prefill) {
+        return newStripe(factory, resetAction, size, prefill);
+    }
+
+    abstract <T> BoundedPool<T> newStripe(Supplier<T> factory, Consumer<T> resetAction, int size, Prefill prefill);
+}
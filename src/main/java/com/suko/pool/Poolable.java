@@ -0,0 +1,30 @@
+package com.suko.pool;
+
+/**
+ * Optional contract for pooled objects that lets a {@link StripedObjectPool} remember which
+ * stripe an object was taken from. Releasing such an object with {@code release} returns it
+ * to that stripe in one step, whichever thread releases it, instead of to the releasing
+ * thread's stripe; so in a pipeline that acquires on one thread and releases on another,
+ * objects flow back to where they are acquired and no stripe fills up while another runs dry.
+ *
+ * <p>The value belongs to the pool: an implementation only stores it in an {@code int} field,
+ * which must start at 0. The pool stores the stripe index plus one, so 0 means the object has
+ * no home stripe yet. An object should not be shared between pools. Batch releases and
+ * per-thread magazines keep their own placement.
+ */
+public interface Poolable {
+
+    /**
+     * Returns the value last stored by {@link #setHomeStripe(int)}.
+     *
+     * @return the stored value, 0 if none
+     */
+    int homeStripe();
+
+    /**
+     * Stores the pool's record of this object's home stripe.
+     *
+     * @param homeStripe the value to store
+     */
+    void setHomeStripe(int homeStripe);
+}
@@ -8,11 +8,41 @@ public enum Pools {
     INSTANCE;
     
     private final ConcurrentHashMap<Class<?>, Pool<?>> pools = new ConcurrentHashMap<>();
+    private GcTrimmer gcTrimmer;
     
     public <T> void create(Class<T> type, Supplier<T> factory, Consumer<T> reset, int size) {
         pools.put(type, new ObjectPool<>(factory, reset, size));
     }
     
+    /**
+     * Creates a single pool of the given mode for the specified type.
+     * 
+     * @param type the class type to pool
+     * @param factory the factory for creating new objects
+     * @param reset the action to reset objects before returning to pool (may be null)
+     * @param size the pool size (will be rounded up to power of 2)
+     * @param mode the pool implementation
+     */
+    public <T> void create(Class<T> type, Supplier<T> factory, Consumer<T> reset, int size, PoolMode mode) {
+        pools.put(type, mode.newPool(factory, reset, size));
+    }
+    
+    /**
+     * Creates a single pool for the specified type that handles misses with the given policy,
+     * for example to cap the number of live objects of the type.
+     * 
+     * @param type the class type to pool
+     * @param factory the factory for creating new objects
+     * @param reset the action to reset objects before returning to pool (may be null)
+     * @param size the pool size (will be rounded up to power of 2)
+     * @param missPolicy what {@link #acquire(Class)} does when the pool is empty
+     */
+    public <T> void create(Class<T> type, Supplier<T> factory, Consumer<T> reset, int size, MissPolicy missPolicy) {
+        ObjectPool<T> pool = new ObjectPool<>(factory, reset, size);
+        pool.setMissPolicy(missPolicy);
+        pools.put(type, pool);
+    }
+    
     /**
      * Creates a striped object pool for the specified type.
      * 
@@ -27,6 +57,21 @@ public enum Pools {
         pools.put(type, new StripedObjectPool<>(factory, reset, initialStripes, stripeSize));
     }
     
+    /**
+     * Creates a striped object pool for the specified type whose stripes use the given mode.
+     * 
+     * @param type the class type to pool
+     * @param factory the factory for creating new objects
+     * @param reset the action to reset objects before returning to pool (may be null)
+     * @param initialStripes the initial number of stripes (will be rounded up to power of 2)
+     * @param stripeSize the size of each individual stripe (will be rounded up to power of 2)
+     * @param mode the implementation of each stripe
+     */
+    public <T> void createStriped(Class<T> type, Supplier<T> factory, Consumer<T> reset, 
+                                 int initialStripes, int stripeSize, PoolMode mode) {
+        pools.put(type, new StripedObjectPool<>(factory, reset, initialStripes, stripeSize, mode));
+    }
+    
     /**
      * Creates a striped object pool for the specified type with auto-grow enabled.
      * 
@@ -44,6 +89,48 @@ public enum Pools {
         pools.put(type, pool);
     }
     
+    /**
+     * Creates a striped object pool for the specified type that handles misses with the given
+     * policy.
+     * 
+     * @param type the class type to pool
+     * @param factory the factory for creating new objects
+     * @param reset the action to reset objects before returning to pool (may be null)
+     * @param initialStripes the initial number of stripes (will be rounded up to power of 2)
+     * @param stripeSize the size of each individual stripe (will be rounded up to power of 2)
+     * @param missPolicy what {@link #acquire(Class)} does when every stripe is empty
+     */
+    public <T> void createStriped(Class<T> type, Supplier<T> factory, Consumer<T> reset, 
+                                 int initialStripes, int stripeSize, MissPolicy missPolicy) {
+        StripedObjectPool<T> pool = new StripedObjectPool<>(factory, reset, initialStripes, stripeSize);
+        pool.setMissPolicy(missPolicy);
+        pools.put(type, pool);
+    }
+    
+    /**
+     * Registers an already constructed pool for the specified type, replacing any existing one.
+     * Use this for pools built with options the create methods do not expose, such as
+     * {@link Prefill#LAZY}.
+     * 
+     * @param type the class type to pool
+     * @param pool the pool to use for this type
+     */
+    public <T> void register(Class<T> type, Pool<T> pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool cannot be null");
+        }
+        pools.put(type, pool);
+    }
+    
+    /**
+     * Removes the pool for the specified type, if any.
+     * 
+     * @param type the class type
+     */
+    public void unregister(Class<?> type) {
+        pools.remove(type);
+    }
+    
     /**
      * Checks if a pool exists for the specified type.
      * 
@@ -68,6 +155,21 @@ public enum Pools {
         }
     }
     
+    /**
+     * Enables auto-grow driven by a growth policy for a striped pool (no-op if not a striped
+     * pool).
+     * 
+     * @param type the class type
+     * @param policy the growth policy
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void enableAutoGrow(Class<T> type, GrowthPolicy policy) {
+        Pool<?> pool = pools.get(type);
+        if (pool instanceof StripedObjectPool) {
+            ((StripedObjectPool<T>) pool).enableAutoGrow(policy);
+        }
+    }
+    
     /**
      * Disables auto-grow for a striped pool (no-op if not a striped pool).
      * 
@@ -95,6 +197,55 @@ public enum Pools {
         }
     }
     
+    /**
+     * Trims every registered pool when a garbage collection leaves the old generation at or
+     * above {@code config.oldGenPercent} occupied after the previous one left it below,
+     * replacing any earlier setting. Collections that keep it above do not trim again until
+     * occupancy has fallen back below the threshold. Striped, FIFO and LIFO pools give up
+     * {@code config.trimPercent} of their pooled objects, passing them to their drop handlers
+     * if they have one, and keep their capacity; other pools, including SPSC and MPSC rings,
+     * are left alone.
+     * Trimming runs on the JVM's notification thread.
+     * 
+     * @param config the occupancy threshold and trim amount
+     */
+    public synchronized void enableGcTrimming(TrimConfig config) {
+        disableGcTrimming();
+        int trimPercent = config.trimPercent;
+        gcTrimmer = new GcTrimmer(config.oldGenPercent, percent -> trim(trimPercent));
+        gcTrimmer.start();
+    }
+    
+    /**
+     * Stops trimming pools after garbage collections.
+     */
+    public synchronized void disableGcTrimming() {
+        if (gcTrimmer != null) {
+            gcTrimmer.stop();
+            gcTrimmer = null;
+        }
+    }
+    
+    public synchronized boolean isGcTrimmingEnabled() {
+        return gcTrimmer != null;
+    }
+    
+    /**
+     * Trims every registered pool now, as a collection over the threshold does when
+     * {@link #enableGcTrimming(TrimConfig)} is on.
+     * 
+     * @param percent the share of pooled objects to remove
+     */
+    public void trim(int percent) {
+        for (Pool<?> pool : pools.values()) {
+            if (pool instanceof StripedObjectPool) {
+                ((StripedObjectPool<?>) pool).trim(percent);
+            } else if (pool instanceof BoundedPool) {
+                ((BoundedPool<?>) pool).trim(percent);
+            }
+        }
+    }
+    
     @SuppressWarnings("unchecked")
     public <T> T acquire(Class<T> type) {
         Pool<T> pool = (Pool<T>) pools.get(type);
@@ -0,0 +1,18 @@
+package com.suko.pool;
+
+/**
+ * Controls whether a pool creates its objects up front.
+ */
+public enum Prefill {
+
+    /**
+     * Every slot is filled through the factory during construction.
+     */
+    EAGER,
+
+    /**
+     * Slots start empty and are filled by releases, by allocate-on-miss objects coming back,
+     * or by a background {@code warmUp(Executor)}. Construction never calls the factory.
+     */
+    LAZY
+}
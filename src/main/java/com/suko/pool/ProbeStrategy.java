@@ -0,0 +1,37 @@
+package com.suko.pool;
+
+/**
+ * Selects the order in which a {@link StripedObjectPool} probes its stripes before falling
+ * back to a scan of the occupancy bitmaps. The number of probes is set separately with
+ * {@link StripedObjectPool#setProbeLimit(int)}.
+ */
+public enum ProbeStrategy {
+
+    /**
+     * Starts at the stripe that last served the thread and moves to the next stripe when one
+     * is empty (or full); a lost CAS rehashes the thread to a random stripe. The default.
+     */
+    LINEAR,
+
+    /**
+     * Like {@link #LINEAR}, but the distance to the next stripe grows by one on every probe
+     * (1, 2, 3, ...), so threads that start on neighbouring stripes do not walk the same path.
+     */
+    QUADRATIC,
+
+    /**
+     * Power of two choices: each probe compares the current stripe with a random one and takes
+     * the one with more objects (on acquire) or more free slots (on release), so skewed
+     * producers and consumers are steered towards where the objects and the room are. Costs an
+     * occupancy read of two stripes per probe.
+     */
+    TWO_CHOICE,
+
+    /**
+     * Each thread always starts at the stripe its thread hash maps to and stays there on a lost
+     * CAS, retrying the same stripe; an empty (or full) stripe moves the probe to the next one.
+     * Keeps a thread's objects in one stripe at the cost of contention between threads that
+     * hash together.
+     */
+    PINNED
+}
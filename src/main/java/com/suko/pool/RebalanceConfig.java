@@ -0,0 +1,26 @@
+package com.suko.pool;
+
+/**
+ * Configuration for background rebalancing between the stripes of a striped object pool.
+ * Watermarks are percentages of a stripe's capacity.
+ */
+public final class RebalanceConfig {
+    public final int intervalMillis;
+    public final int lowWatermarkPercent;
+    public final int highWatermarkPercent;
+    public final int maxMovePerStripe;
+
+    public RebalanceConfig(int intervalMillis, int lowWatermarkPercent, int highWatermarkPercent, int maxMovePerStripe) {
+        if (lowWatermarkPercent >= highWatermarkPercent) {
+            throw new IllegalArgumentException("Low watermark must be below high watermark");
+        }
+        this.intervalMillis = Math.max(1, intervalMillis);
+        this.lowWatermarkPercent = Math.max(0, lowWatermarkPercent);
+        this.highWatermarkPercent = Math.min(100, highWatermarkPercent);
+        this.maxMovePerStripe = Math.max(1, maxMovePerStripe);
+    }
+
+    public static RebalanceConfig withDefaults(int stripeSize) {
+        return new RebalanceConfig(10, 25, 75, Math.max(1, stripeSize / 2));
+    }
+}
@@ -0,0 +1,217 @@
+package com.suko.pool;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/*
+ * Field layout for the single-producer/single-consumer specialized rings, padded the same way
+ * as ObjectPool. The consumer (acquire) side and the producer (release) side each keep their
+ * own index and a cached copy of the other side's index on a private cache line.
+ */
+abstract class RingPoolPad0<T> extends BoundedPool<T> {
+    int p16; // Fills the gap after a compressed object header so no subclass field lands there
+    long p00, p01, p02, p03;
+    long p04, p05, p06, p07;
+    long p08, p09, p10, p11;
+    long p12, p13, p14, p15;
+}
+
+abstract class RingPoolFields<T> extends RingPoolPad0<T> {
+    final Object[] buffer;
+    final int mask;
+    final Supplier<T> factory;
+    final Consumer<T> resetAction;
+
+    RingPoolFields(Supplier<T> factory, Consumer<T> resetAction, int poolSize) {
+        this.buffer = new Object[poolSize];
+        this.mask = poolSize - 1;
+        this.factory = factory;
+        this.resetAction = resetAction;
+    }
+}
+
+abstract class RingPoolPad1<T> extends RingPoolFields<T> {
+    long p00, p01, p02, p03;
+    long p04, p05, p06, p07;
+    long p08, p09, p10, p11;
+    long p12, p13, p14, p15;
+
+    RingPoolPad1(Supplier<T> factory, Consumer<T> resetAction, int poolSize) {
+        super(factory, resetAction, poolSize);
+    }
+}
+
+abstract class RingPoolConsumer<T> extends RingPoolPad1<T> {
+    long head; // Accessed through VarHandle
+    long tailCache; // Consumer's last view of tail
+
+    RingPoolConsumer(Supplier<T> factory, Consumer<T> resetAction, int poolSize) {
+        super(factory, resetAction, poolSize);
+    }
+}
+
+abstract class RingPoolPad2<T> extends RingPoolConsumer<T> {
+    long p00, p01, p02, p03;
+    long p04, p05, p06, p07;
+    long p08, p09, p10, p11;
+    long p12, p13, p14, p15;
+
+    RingPoolPad2(Supplier<T> factory, Consumer<T> resetAction, int poolSize) {
+        super(factory, resetAction, poolSize);
+    }
+}
+
+abstract class RingPoolProducer<T> extends RingPoolPad2<T> {
+    long tail; // Accessed through VarHandle
+    long headCache; // Producers' last view of head
+
+    RingPoolProducer(Supplier<T> factory, Consumer<T> resetAction, int poolSize) {
+        super(factory, resetAction, poolSize);
+    }
+}
+
+abstract class RingPoolPad3<T> extends RingPoolProducer<T> {
+    long p00, p01, p02, p03;
+    long p04, p05, p06, p07;
+    long p08, p09, p10, p11;
+    long p12, p13, p14, p15;
+
+    RingPoolPad3(Supplier<T> factory, Consumer<T> resetAction, int poolSize) {
+        super(factory, resetAction, poolSize);
+    }
+}
+
+/**
+ * Common base for ring pools that specialize the acquire (consumer) or release (producer) side
+ * for a single thread. Subclasses implement {@code tryAcquire}, {@code offer} and the batch
+ * primitives; the public Pool methods are shared here.
+ *
+ * @param <T> the type of objects to pool
+ */
+abstract class RingPool<T> extends RingPoolPad3<T> {
+    static final VarHandle HEAD, TAIL, HEAD_CACHE, SLOT;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            HEAD = l.findVarHandle(RingPoolConsumer.class, "head", long.class);
+            TAIL = l.findVarHandle(RingPoolProducer.class, "tail", long.class);
+            HEAD_CACHE = l.findVarHandle(RingPoolProducer.class, "headCache", long.class);
+            SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    RingPool(Supplier<T> factory, Consumer<T> resetAction, int size, Prefill prefill) {
+        super(factory, resetAction, nextPowerOfTwo(size));
+        if (prefill == Prefill.EAGER) {
+            for (int i = 0; i < buffer.length; i++) {
+                buffer[i] = factory.get();
+            }
+            tailCache = buffer.length;
+            TAIL.setVolatile(this, (long) buffer.length);
+        }
+    }
+
+    public T acquire() {
+        T object = tryAcquire();
+        return object != null ? object : factory.get();
+    }
+
+    public abstract T tryAcquire();
+
+    /**
+     * Returns an object to the pool. A null slot means a release in flight to the acquiring
+     * side, so null is never stored.
+     *
+     * @return true if the object was stored, false if the pool is full or the object is null
+     */
+    public boolean release(T object) {
+        if (object == null) {
+            return false;
+        }
+        if (resetAction != null) {
+            resetAction.accept(object);
+        }
+        return offer(object);
+    }
+
+    public int acquireBatch(T[] dst, int max) {
+        return acquireBatchInto(dst, 0, Math.min(max, dst.length));
+    }
+
+    /**
+     * Releases the first {@code count} objects of {@code src}.
+     *
+     * @return the number of objects stored
+     * @throws IllegalArgumentException if any of them is null
+     */
+    public int releaseBatch(T[] src, int count) {
+        int limit = Math.min(count, src.length);
+        checkNoNulls(src, limit);
+        if (resetAction != null) {
+            for (int i = 0; i < limit; i++) {
+                resetAction.accept(src[i]);
+            }
+        }
+        return releaseBatchFrom(src, 0, limit);
+    }
+
+    /**
+     * Returns the length of the null-free prefix of {@code src[offset, offset + count)}, the
+     * part of a batch a ring may store.
+     */
+    static int nonNullPrefix(Object[] src, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            if (src[offset + i] == null) {
+                return i;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * A no-op: only the single acquiring thread may take objects out of the ring, and
+     * trimming runs on whichever thread observes the heap pressure.
+     *
+     * @return 0
+     */
+    @Override
+    public int trim(int percent) {
+        return 0;
+    }
+
+    T newObject() {
+        return factory.get();
+    }
+
+    boolean isEmpty() {
+        return (long) HEAD.getVolatile(this) >= (long) TAIL.getVolatile(this);
+    }
+
+    boolean isFull() {
+        return (long) TAIL.getVolatile(this) - (long) HEAD.getVolatile(this) >= buffer.length;
+    }
+
+    @Override
+    int occupancy() {
+        long size = (long) TAIL.getVolatile(this) - (long) HEAD.getVolatile(this);
+        return (int) Math.max(0, Math.min(size, buffer.length)); // Racing updates can overshoot
+    }
+
+    /**
+     * Returns the number of slots in the pool.
+     *
+     * @return the pool capacity
+     */
+    public int capacity() {
+        return buffer.length;
+    }
+
+    private static int nextPowerOfTwo(int n) {
+        return 1 << (32 - Integer.numberOfLeadingZeros(n - 1));
+    }
+}
@@ -0,0 +1,20 @@
+package com.suko.pool;
+
+/**
+ * Configuration for idle-driven shrinking of striped object pools.
+ */
+public final class ShrinkConfig {
+    public final int idleMillis;
+    public final int removeStripesPerEvent;
+    public final int minStripes;
+
+    public ShrinkConfig(int idleMillis, int removeStripesPerEvent, int minStripes) {
+        this.idleMillis = Math.max(1, idleMillis);
+        this.removeStripesPerEvent = Math.max(1, removeStripesPerEvent);
+        this.minStripes = Math.max(1, minStripes);
+    }
+
+    public static ShrinkConfig withDefaults(int minStripes) {
+        return new ShrinkConfig(1000, 1, minStripes);
+    }
+}
@@ -0,0 +1,104 @@
+package com.suko.pool;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A bounded ring pool for exactly one releasing thread and one acquiring thread, e.g. an I/O
+ * thread that releases buffers a single worker acquires.
+ *
+ * <p>Neither side uses CAS: each side owns its index, publishes it with a release store and
+ * reads the other side's index with an acquire load only when its cached copy says the ring
+ * looks empty (acquire) or full (release).
+ *
+ * <p>Using the pool from more than one acquiring or more than one releasing thread at a time
+ * (including a concurrent {@code warmUp}) corrupts it.
+ *
+ * @param <T> the type of objects to pool
+ */
+public class SpscObjectPool<T> extends RingPool<T> implements Pool<T> {
+
+    public SpscObjectPool(Supplier<T> factory, Consumer<T> resetAction, int size) {
+        this(factory, resetAction, size, Prefill.EAGER);
+    }
+
+    /**
+     * Creates a pool that is either pre-populated or starts empty.
+     *
+     * @param factory the factory for creating new objects
+     * @param resetAction the action to reset objects before returning to pool (may be null)
+     * @param size the pool size (will be rounded up to power of 2)
+     * @param prefill whether to create all objects now or leave the slots empty
+     */
+    public SpscObjectPool(Supplier<T> factory, Consumer<T> resetAction, int size, Prefill prefill) {
+        super(factory, resetAction, size, prefill);
+    }
+
+    @SuppressWarnings("unchecked")
+    public T tryAcquire() {
+        long currentHead = (long) HEAD.getOpaque(this);
+        if (currentHead >= tailCache) {
+            tailCache = (long) TAIL.getAcquire(this);
+            if (currentHead >= tailCache) {
+                return null; // Pool is empty
+            }
+        }
+        int index = (int) (currentHead & mask);
+        T object = (T) buffer[index];
+        buffer[index] = null;
+        HEAD.setRelease(this, currentHead + 1);
+        return object;
+    }
+
+    boolean offer(T object) {
+        if (object == null) {
+            return false; // Would read as an empty slot
+        }
+        long currentTail = (long) TAIL.getOpaque(this);
+        if (currentTail - headCache >= buffer.length) {
+            headCache = (long) HEAD.getAcquire(this);
+            if (currentTail - headCache >= buffer.length) {
+                return false; // Pool is full
+            }
+        }
+        buffer[(int) (currentTail & mask)] = object;
+        TAIL.setRelease(this, currentTail + 1);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    int acquireBatchInto(T[] dst, int offset, int max) {
+        long currentHead = (long) HEAD.getOpaque(this);
+        if (tailCache - currentHead < max) {
+            tailCache = (long) TAIL.getAcquire(this);
+        }
+        int n = (int) Math.min(max, tailCache - currentHead);
+        if (n <= 0) {
+            return 0;
+        }
+        for (int i = 0; i < n; i++) {
+            int index = (int) ((currentHead + i) & mask);
+            dst[offset + i] = (T) buffer[index];
+            buffer[index] = null;
+        }
+        HEAD.setRelease(this, currentHead + n);
+        return n;
+    }
+
+    int releaseBatchFrom(T[] src, int offset, int count) {
+        count = nonNullPrefix(src, offset, count);
+        long currentTail = (long) TAIL.getOpaque(this);
+        if (buffer.length - (currentTail - headCache) < count) {
+            headCache = (long) HEAD.getAcquire(this);
+        }
+        int n = (int) Math.min(count, buffer.length - (currentTail - headCache));
+        if (n <= 0) {
+            return 0;
+        }
+        for (int i = 0; i < n; i++) {
+            buffer[(int) ((currentTail + i) & mask)] = src[offset + i];
+        }
+        TAIL.setRelease(this, currentTail + n);
+        return n;
+    }
+}
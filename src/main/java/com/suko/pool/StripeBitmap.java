@@ -0,0 +1,58 @@
+package com.suko.pool;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A lock-free bitmap with one bit per stripe, used by {@link StripedObjectPool} to summarize
+ * which stripes are non-empty and which are non-full. Bits are read with volatile loads and
+ * changed with atomic bitwise operations, so setting or clearing one bit never loses a
+ * concurrent change to another bit of the same word.
+ */
+final class StripeBitmap {
+    private static final VarHandle WORD = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] words;
+
+    /**
+     * Creates a bitmap of {@code size} bits, all set.
+     */
+    StripeBitmap(int size) {
+        this.words = new long[(size + 63) >>> 6];
+        for (int i = 0; i < size; i++) {
+            words[i >>> 6] |= 1L << i;
+        }
+    }
+
+    boolean get(int bit) {
+        return ((long) WORD.getVolatile(words, bit >>> 6) & (1L << bit)) != 0;
+    }
+
+    void set(int bit) {
+        WORD.getAndBitwiseOr(words, bit >>> 6, 1L << bit);
+    }
+
+    void clear(int bit) {
+        WORD.getAndBitwiseAnd(words, bit >>> 6, ~(1L << bit));
+    }
+
+    /**
+     * Returns the first set bit at or after {@code from}, wrapping around to the start.
+     *
+     * @return the bit index, or -1 if no bit is set
+     */
+    int nextSetBit(int from) {
+        int start = from >>> 6;
+        int w = start;
+        long word = (long) WORD.getVolatile(words, w) & (-1L << from);
+        // One extra step revisits the starting word for the bits before from
+        for (int i = 0; i <= words.length; i++) {
+            if (word != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            w = w + 1 == words.length ? 0 : w + 1;
+            word = (long) WORD.getVolatile(words, w);
+        }
+        return -1;
+    }
+}
@@ -1,69 +1,330 @@
 package com.suko.pool;
 
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 /**
- * A lock-free, grow-only striped object pool that uses multiple independent ObjectPool instances
- * to reduce contention and support dynamic capacity growth without object migration.
+ * A lock-free striped object pool that uses multiple independent bounded pools
+ * (FIFO {@link ObjectPool} rings by default, see {@link PoolMode}) to reduce contention and
+ * support dynamic capacity growth without object migration.
  * 
  * <p>This implementation provides:
  * <ul>
  * <li>Lock-free operations using CAS loops and atomic directory swaps</li>
- * <li>Grow-only resizing by appending new stripes</li>
+ * <li>Resizing by appending new stripes, and idle-driven shrinking that retires the newest
+ * stripes (see {@link #enableAutoShrink})</li>
  * <li>Allocation-free fast path for acquire/release operations</li>
- * <li>Allocate-on-miss fallback when all stripes are empty</li>
- * <li>Thread-local probing to reduce contention</li>
+ * <li>Configurable {@link MissPolicy} when every stripe is empty (allocate by default)</li>
+ * <li>Allocation-free per-thread probing that moves a thread to another stripe when it
+ * loses a CAS, spreading colliding threads out; see {@link ProbeStrategy} for the
+ * alternatives</li>
+ * <li>Non-empty/non-full occupancy bitmaps, so a miss or a full stripe jumps straight to a
+ * viable stripe with a bit scan</li>
+ * <li>Optional per-thread magazines, see {@link #enableMagazines(int)}</li>
+ * <li>Home-stripe routing for {@link Poolable} objects, which go back to the stripe they
+ * were taken from</li>
+ * <li>Optional background rebalancing from full to empty stripes, see
+ * {@link #enableRebalancing}</li>
+ * <li>Optional geometric growth, where each added stripe doubles in size up to a cap, see
+ * {@link #enableGeometricGrowth(int)}</li>
  * </ul>
  * 
  * @param <T> the type of objects to pool
  */
 public final class StripedObjectPool<T> implements Pool<T> {
     
-    private static final int PROBE_LIMIT = 3;
+    private static final int DEFAULT_PROBE_LIMIT = 3;
+    
+    /**
+     * Growth executor that applies resizes on the thread whose acquire missed, for callers
+     * that prefer synchronous growth to a background build, see
+     * {@link #setGrowthExecutor(Executor)}.
+     */
+    public static final Executor INLINE_GROWTH = Runnable::run;
+    
+    /**
+     * Default builder for resizes when no growth executor is set: one daemon thread shared by
+     * every pool, started on first use.
+     */
+    private static final class GrowthBuilder {
+        static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fastpool-growth");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
     
     
     private final AtomicReference<Directory<T>> directory;
     private final Supplier<T> factory;
     private final Consumer<T> resetAction;
     private final int stripeSize;
+    private final PoolMode mode;
+    // Largest stripe created by geometric growth; 0 means every stripe has stripeSize
+    private volatile int maxStripeSize;
+    private final Prefill prefill;
+    
+    // Stripe selection before the bitmap scan
+    private volatile ProbeStrategy probeStrategy = ProbeStrategy.LINEAR;
+    private volatile int probeLimit = DEFAULT_PROBE_LIMIT;
     
-    // Thread-local hint for stripe selection to reduce contention
-    private final ThreadLocal<Integer> tlHint = ThreadLocal.withInitial(() -> 
-        Thread.currentThread().hashCode() & Integer.MAX_VALUE);
+    // Per-thread stripe probe and magazine
+    private final ThreadLocal<ThreadState> threadState = ThreadLocal.withInitial(ThreadState::new);
+    
+    // Per-thread object caches in front of the stripes; magazineSize 0 means disabled
+    private volatile int magazineSize;
+    
+    // Threads parked in acquire(timeout, unit)
+    final Waiters<T> waiters = new Waiters<>(this::tryAcquire, this::offer, this::drop);
+    
+    // What acquire() does when every stripe is empty
+    private volatile MissPolicy missPolicy = MissPolicy.ALLOCATE;
+    private final AtomicInteger missAllocations = new AtomicInteger();
+    
+    // Releases that found every stripe full
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile Consumer<? super T> dropHandler;
     
     // Auto-grow related fields
-    private volatile AutoGrowConfig autoCfg;
+    private volatile GrowthPolicy growthPolicy;
+    private volatile ScheduledFuture<?> growthTask;
+    private volatile Executor growthExecutor; // Null builds on the maintenance executor or GrowthBuilder
+    private volatile Executor maintenanceExecutor;
+    private volatile MemoryBudget memoryBudget;
     private final AtomicBoolean growthGuard = new AtomicBoolean(false);
-    private final AtomicLong missDebt = new AtomicLong(0);
-    private volatile long lastGrowNanos;
+    private volatile FutureTask<?> pendingResize; // Handed to the growth executor, may not have run
+    
+    // Auto-shrink related fields
+    private volatile ShrinkConfig shrinkCfg;
+    private volatile ScheduledFuture<?> shrinkTask;
+    private volatile long idleSinceNanos = System.nanoTime(); // Last miss or resize
+    
+    // Background rebalancing between stripes
+    private volatile ScheduledFuture<?> rebalanceTask;
+    private final AtomicLong rebalanced = new AtomicLong();
     
     /**
      * Immutable directory containing the array of stripes and metadata.
      */
     private static final class Directory<T> {
-        final ObjectPool<T>[] stripes;
-        final int mask; // For fast modulo when length is power of 2
+        final BoundedPool<T>[] stripes;
+        final int capacity;
+        // Running total of stripe capacities, so ends[i] - 1 is the last slot of stripe i;
+        // null while every stripe has the same capacity
+        final int[] ends;
+        // Occupancy summary: a clear bit means the stripe was seen empty (full) and nothing
+        // has been stored into (taken from) it since. Bits start set, which is always safe.
+        final StripeBitmap nonEmpty;
+        final StripeBitmap nonFull;
         
+        // Stripes never reset: release() resets once before probing
         @SuppressWarnings("unchecked")
-        Directory(int stripeCount, Supplier<T> factory, Consumer<T> resetAction, int stripeSize) {
-            this.stripes = new ObjectPool[stripeCount];
-            this.mask = stripeCount - 1; // Assumes power of 2
+        Directory(int stripeCount, Supplier<T> factory, int stripeSize, PoolMode mode, Prefill prefill) {
+            this.stripes = new BoundedPool[stripeCount];
             
             for (int i = 0; i < stripeCount; i++) {
-                this.stripes[i] = new ObjectPool<>(factory, resetAction, stripeSize);
+                this.stripes[i] = mode.newStripe(factory, null, stripeSize, prefill);
             }
+            this.capacity = stripeCount * stripeSize;
+            this.ends = null;
+            this.nonEmpty = new StripeBitmap(stripeCount);
+            this.nonFull = new StripeBitmap(stripeCount);
         }
         
-        Directory(ObjectPool<T>[] stripes) {
+        Directory(BoundedPool<T>[] stripes) {
             this.stripes = stripes;
-            this.mask = stripes.length - 1; // Assumes power of 2
+            int[] ends = new int[stripes.length];
+            int total = 0;
+            boolean uniform = true;
+            for (int i = 0; i < stripes.length; i++) {
+                int stripeCapacity = stripes[i].capacity();
+                uniform &= stripeCapacity == stripes[0].capacity();
+                total += stripeCapacity;
+                ends[i] = total;
+            }
+            this.capacity = total;
+            this.ends = uniform ? null : ends;
+            this.nonEmpty = new StripeBitmap(stripes.length);
+            this.nonFull = new StripeBitmap(stripes.length);
+        }
+        
+        // Setting a bit is a read on the fast path; the bitmap is written only on a transition
+        void markNonEmpty(int idx) {
+            if (!nonEmpty.get(idx)) {
+                nonEmpty.set(idx);
+            }
+        }
+        
+        void markNonFull(int idx) {
+            if (!nonFull.get(idx)) {
+                nonFull.set(idx);
+            }
+        }
+        
+        // Clearing re-checks the stripe afterwards: either this sees a racing store, or the
+        // storing thread sees the cleared bit and sets it again
+        void markEmpty(int idx) {
+            if (nonEmpty.get(idx)) {
+                nonEmpty.clear(idx);
+                if (!stripes[idx].isEmpty()) {
+                    nonEmpty.set(idx);
+                }
+            }
+        }
+        
+        void markFull(int idx) {
+            if (nonFull.get(idx)) {
+                nonFull.clear(idx);
+                if (!stripes[idx].isFull()) {
+                    nonFull.set(idx);
+                }
+            }
+        }
+        
+        /**
+         * Maps a well-mixed probe onto [0, stripe count) with a multiply-shift range reduction,
+         * which works for any stripe count (addStripes does not keep it a power of two). When
+         * stripes differ in size the probe is mapped onto a slot of the total capacity instead,
+         * and the stripe holding that slot is found by binary search, so each stripe receives
+         * threads in proportion to its capacity.
+         */
+        int indexFor(int probe) {
+            if (ends == null) {
+                return (int) (((probe & 0xFFFFFFFFL) * stripes.length) >>> 32);
+            }
+            int slot = (int) (((probe & 0xFFFFFFFFL) * capacity) >>> 32);
+            int lo = 0;
+            int hi = ends.length - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (ends[mid] > slot) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            return lo;
+        }
+        
+        int next(int idx) {
+            return ++idx == stripes.length ? 0 : idx;
+        }
+        
+        /**
+         * Returns the stripe a thread should try first: the last stripe that served it, or the
+         * one its probe hashes to if that is out of range.
+         */
+        int start(ThreadState ts) {
+            int idx = ts.stripe;
+            return idx >= 0 && idx < stripes.length ? idx : indexFor(ts.probe);
+        }
+        
+        /**
+         * Moves a thread that lost a CAS to a pseudo-random new stripe.
+         */
+        int rehash(ThreadState ts) {
+            ts.probe = advanceProbe(ts.probe);
+            return ts.stripe = indexFor(ts.probe);
+        }
+        
+        /**
+         * Returns the first stripe to probe under the given strategy.
+         * 
+         * @param acquire true to look for objects, false to look for free slots
+         */
+        int first(ThreadState ts, ProbeStrategy strategy, boolean acquire) {
+            switch (strategy) {
+                case TWO_CHOICE:
+                    return choose(ts, start(ts), acquire);
+                case PINNED:
+                    return indexFor(ts.probe);
+                default:
+                    return start(ts);
+            }
+        }
+        
+        /**
+         * Returns the stripe to probe after attempt {@code attempt} found stripe {@code idx}
+         * empty (or full).
+         */
+        int after(ThreadState ts, ProbeStrategy strategy, int idx, int attempt, boolean acquire) {
+            switch (strategy) {
+                case QUADRATIC:
+                    idx += (attempt + 1) % stripes.length;
+                    return idx >= stripes.length ? idx - stripes.length : idx;
+                case TWO_CHOICE:
+                    return choose(ts, rehash(ts), acquire);
+                default:
+                    return next(idx);
+            }
+        }
+        
+        /**
+         * Returns the stripe to probe after losing a CAS on stripe {@code idx}.
+         */
+        int contended(ThreadState ts, ProbeStrategy strategy, int idx, boolean acquire) {
+            switch (strategy) {
+                case TWO_CHOICE:
+                    return choose(ts, rehash(ts), acquire);
+                case PINNED:
+                    return idx;
+                default:
+                    return rehash(ts);
+            }
+        }
+        
+        /**
+         * Compares stripe {@code idx} with a random one and returns the one with more objects
+         * (or more free slots).
+         */
+        int choose(ThreadState ts, int idx, boolean acquire) {
+            ts.probe = advanceProbe(ts.probe);
+            int other = indexFor(ts.probe);
+            if (other == idx) {
+                return idx;
+            }
+            BoundedPool<T> a = stripes[idx];
+            BoundedPool<T> b = stripes[other];
+            boolean better = acquire
+                ? b.occupancy() > a.occupancy()
+                : b.capacity() - b.occupancy() > a.capacity() - a.occupancy();
+            return better ? other : idx;
+        }
+    }
+    
+    /**
+     * A thread's view of the pool. Only ever touched by its owning thread, so moving the probe
+     * is a plain field write with no boxing or ThreadLocal map update.
+     */
+    private static final class ThreadState {
+        int probe = initialProbe(); // Hash, rehashed on contention
+        int stripe = -1; // Stripe to try first, -1 until the thread has been served
+        Magazine magazine;
+    }
+    
+    /**
+     * A thread's private stack of reset objects. Only ever touched by its owning thread.
+     */
+    private static final class Magazine {
+        final Object[] items;
+        int count;
+        
+        Magazine(int size) {
+            this.items = new Object[size];
         }
     }
     
@@ -77,6 +338,37 @@ public final class StripedObjectPool<T> implements Pool<T> {
      */
     public StripedObjectPool(Supplier<T> factory, Consumer<T> resetAction, 
                            int initialStripes, int stripeSize) {
+        this(factory, resetAction, initialStripes, stripeSize, PoolMode.FIFO);
+    }
+    
+    /**
+     * Creates a new striped object pool whose stripes use the given pool mode.
+     * 
+     * @param factory the factory for creating new objects
+     * @param resetAction the action to reset objects before returning to pool (may be null)
+     * @param initialStripes the initial number of stripes (will be rounded up to power of 2)
+     * @param stripeSize the size of each individual stripe (will be rounded up to power of 2)
+     * @param mode the implementation of each stripe, e.g. {@link PoolMode#LIFO} for cache-warm reuse
+     */
+    public StripedObjectPool(Supplier<T> factory, Consumer<T> resetAction, 
+                           int initialStripes, int stripeSize, PoolMode mode) {
+        this(factory, resetAction, initialStripes, stripeSize, mode, Prefill.EAGER);
+    }
+    
+    /**
+     * Creates a new striped object pool whose stripes use the given pool mode and prefill.
+     * With {@link Prefill#LAZY} neither construction nor {@link #addStripes(int)} calls the
+     * factory; use {@link #warmUp(Executor)} to fill the stripes in the background.
+     * 
+     * @param factory the factory for creating new objects
+     * @param resetAction the action to reset objects before returning to pool (may be null)
+     * @param initialStripes the initial number of stripes (will be rounded up to power of 2)
+     * @param stripeSize the size of each individual stripe (will be rounded up to power of 2)
+     * @param mode the implementation of each stripe
+     * @param prefill whether stripes are filled when created or start empty
+     */
+    public StripedObjectPool(Supplier<T> factory, Consumer<T> resetAction, 
+                           int initialStripes, int stripeSize, PoolMode mode, Prefill prefill) {
         if (factory == null) {
             throw new IllegalArgumentException("Factory cannot be null");
         }
@@ -86,294 +378,1430 @@ public final class StripedObjectPool<T> implements Pool<T> {
         if (stripeSize <= 0) {
             throw new IllegalArgumentException("Stripe size must be positive");
         }
+        if (mode == null) {
+            throw new IllegalArgumentException("Mode cannot be null");
+        }
+        if (prefill == null) {
+            throw new IllegalArgumentException("Prefill cannot be null");
+        }
         
         this.factory = factory;
+        this.mode = mode;
+        this.prefill = prefill;
         this.resetAction = resetAction;
         this.stripeSize = nextPowerOfTwo(stripeSize);
         
         int actualStripes = nextPowerOfTwo(initialStripes);
-        this.directory = new AtomicReference<>(new Directory<>(actualStripes, factory, resetAction, this.stripeSize));
+        this.directory = new AtomicReference<>(new Directory<>(actualStripes, factory, this.stripeSize, mode, prefill));
     }
     
     /**
-     * Acquires an object from the pool. If all probed stripes are empty, allocates a new object.
+     * Acquires an object from the pool. If every stripe is empty, the {@link MissPolicy}
+     * decides what happens (by default a new object is allocated).
      * 
-     * @return a pooled object or a newly allocated object
+     * @return a pooled object, a new object, or null under {@link MissPolicy#RETURN_NULL}
+     * @throws IllegalStateException if the miss policy refuses to hand out an object
      */
     public T acquire() {
-        Directory<T> dir = directory.get();
-        int stripeCount = dir.stripes.length;
-        int startIdx = tlHint.get() & dir.mask;
+        ThreadState ts = threadState.get();
+        int magSize = magazineSize;
+        if (magSize > 0) {
+            T obj = magazineAcquire(ts, magSize);
+            return obj != null ? obj : miss();
+        }
         
-        // Probe up to PROBE_LIMIT stripes starting from thread-local hint
-        for (int i = 0; i < PROBE_LIMIT && i < stripeCount; i++) {
-            int idx = (startIdx + i) & dir.mask;
-            ObjectPool<T> stripe = dir.stripes[idx];
-            
-            // Try to acquire from this stripe without allocating
-            T obj = stripe.tryAcquire();
-            if (obj != null) {
-                tlHint.set(idx);
-                if (autoCfg != null) {
-                    decayMissDebt();
-                }
-                return obj;
+        T obj = probeAcquire(ts);
+        if (obj != null) {
+            GrowthPolicy policy = growthPolicy;
+            if (policy != null) {
+                policy.onHit(1);
             }
+            return obj;
         }
-        
-        // All probed stripes were empty, allocate new object
-        if (autoCfg != null) {
+        return miss(); // Every stripe was empty
+    }
+    
+    private T miss() {
+        if (shrinkCfg != null) {
+            idleSinceNanos = System.nanoTime();
+        }
+        if (growthPolicy != null) {
             maybeGrowOnMiss();
         }
-        return factory.get();
+        return missPolicy.onMiss(factory, waiters, missAllocations);
     }
     
     /**
      * Attempts to acquire an object from the pool without allocating.
      * 
-     * @return a pooled object or null if all probed stripes are empty
+     * @return a pooled object or null if every stripe is empty
      */
     public T tryAcquire() {
-        Directory<T> dir = directory.get();
-        int stripeCount = dir.stripes.length;
-        int startIdx = tlHint.get() & dir.mask;
-        
-        // Probe up to PROBE_LIMIT stripes starting from thread-local hint
-        for (int i = 0; i < PROBE_LIMIT && i < stripeCount; i++) {
-            int idx = (startIdx + i) & dir.mask;
-            ObjectPool<T> stripe = dir.stripes[idx];
-            
-            // Try to acquire from this stripe without allocating
-            T obj = stripe.tryAcquire();
-            if (obj != null) {
-                tlHint.set(idx);
-                return obj;
-            }
+        ThreadState ts = threadState.get();
+        int magSize = magazineSize;
+        if (magSize > 0) {
+            return magazineAcquire(ts, magSize);
         }
-        
-        return null; // All probed stripes were empty
+        return probeAcquire(ts);
     }
     
     /**
-     * Releases an object back to the pool. Attempts to return to a stripe, drops if all are full.
+     * Probes up to {@link #probeLimit()} stripes in the order of the {@link ProbeStrategy}.
+     * With the default linear strategy an empty stripe moves the probe to the next one and a
+     * stripe where the thread loses a CAS is left for another thread and the probe is rehashed,
+     * so colliding threads spread out over the stripes. If the probes come up empty the rest
+     * of the directory is scanned before reporting a miss.
      * 
-     * @param obj the object to release
-     * @return true if successfully returned to a stripe, false if dropped
+     * @return a pooled object or null if every stripe is empty
      */
-    public boolean release(T obj) {
-        if (obj == null) {
-            return false;
-        }
-        
+    @SuppressWarnings("unchecked")
+    private T probeAcquire(ThreadState ts) {
         Directory<T> dir = directory.get();
-        int stripeCount = dir.stripes.length;
-        int startIdx = tlHint.get() & dir.mask;
-        
-        // Try to release to probed stripes first
-        for (int i = 0; i < PROBE_LIMIT && i < stripeCount; i++) {
-            int idx = (startIdx + i) & dir.mask;
-            ObjectPool<T> stripe = dir.stripes[idx];
-            if (stripe.release(obj)) {
-                tlHint.set(idx);
-                if (autoCfg != null) {
-                    decayMissDebt();
-                }
-                return true;
-            }
-        }
+        ProbeStrategy strategy = probeStrategy;
+        int limit = Math.min(probeLimit, dir.stripes.length);
+        int idx = dir.first(ts, strategy, true);
         
-        // If all probed stripes are full, try a few more before giving up
-        for (int i = PROBE_LIMIT; i < Math.min(PROBE_LIMIT * 2, stripeCount); i++) {
-            int idx = (startIdx + i) & dir.mask;
-            ObjectPool<T> stripe = dir.stripes[idx];
-            if (stripe.release(obj)) {
-                tlHint.set(idx);
-                if (autoCfg != null) {
-                    decayMissDebt();
-                }
-                return true;
+        for (int i = 0; i < limit; i++) {
+            Object obj = dir.stripes[idx].pollOnce();
+            if (obj == BoundedPool.CONTENDED) {
+                idx = dir.contended(ts, strategy, idx, true);
+            } else if (obj != null) {
+                ts.stripe = idx;
+                taken(dir, idx);
+                setHome(obj, idx);
+                return (T) obj;
+            } else {
+                dir.markEmpty(idx);
+                idx = dir.after(ts, strategy, idx, i, true);
             }
         }
-        
-        return false; // All stripes are full, drop the object
+        return steal(ts, dir, idx);
     }
     
     /**
-     * Adds the specified number of new stripes to the pool.
-     * 
-     * @param count the number of stripes to add
+     * Jumps from stripe to stripe through the non-empty bitmap, starting where the probes
+     * stopped and retrying lost CASes, so that idle objects in stripes the thread does not
+     * usually probe are used before the pool reports a miss. The thread's probe moves to the
+     * stripe that had an object.
      */
-    public void addStripes(int count) {
-        if (count <= 0) {
-            return;
-        }
-        
-        while (true) {
-            Directory<T> current = directory.get();
-            ObjectPool<T>[] currentStripes = current.stripes;
-            int currentLength = currentStripes.length;
-            
-            // Create new array with additional stripes
-            ObjectPool<T>[] newStripes = Arrays.copyOf(currentStripes, currentLength + count);
-            
-            // Initialize new stripes
-            for (int i = currentLength; i < newStripes.length; i++) {
-                newStripes[i] = new ObjectPool<>(factory, resetAction, stripeSize);
+    private T steal(ThreadState ts, Directory<T> dir, int idx) {
+        for (int i = 0; i < dir.stripes.length; i++, idx = dir.next(idx)) {
+            idx = dir.nonEmpty.nextSetBit(idx);
+            if (idx < 0) {
+                return null; // Every stripe is empty
             }
-            
-            Directory<T> newDir = new Directory<>(newStripes);
-            
-            // Atomically swap the directory
-            if (directory.compareAndSet(current, newDir)) {
-                break;
+            T obj = dir.stripes[idx].tryAcquire();
+            if (obj != null) {
+                ts.stripe = idx;
+                taken(dir, idx);
+                setHome(obj, idx);
+                return obj;
             }
-            // CAS failed, retry
+            dir.markEmpty(idx);
         }
+        return null;
     }
     
     /**
-     * Ensures the pool has at least the specified total capacity by adding stripes if necessary.
-     * 
-     * @param minTotalCapacity the minimum total capacity required
+     * Records the stripe a {@link Poolable} object was taken from.
      */
-    public void ensureCapacity(int minTotalCapacity) {
-        int currentCapacity = totalCapacity();
-        if (currentCapacity >= minTotalCapacity) {
-            return;
+    private static void setHome(Object obj, int idx) {
+        if (obj instanceof Poolable) {
+            ((Poolable) obj).setHomeStripe(idx + 1);
         }
-        
-        int neededCapacity = minTotalCapacity - currentCapacity;
-        int stripesToAdd = (neededCapacity + stripeSize - 1) / stripeSize; // Ceiling division
-        
-        if (stripesToAdd > 0) {
-            addStripes(stripesToAdd);
+    }
+    
+    /**
+     * Records that a stripe has room after taking from it. The current directory is marked
+     * as well, so a directory swap racing with a clear cannot hide the stripe.
+     */
+    private void taken(Directory<T> dir, int idx) {
+        dir.markNonFull(idx);
+        Directory<T> current = directory.get();
+        if (current != dir && idx < current.stripes.length && current.stripes[idx] == dir.stripes[idx]) {
+            current.markNonFull(idx);
         }
     }
     
     /**
-     * Returns the current number of stripes in the pool.
-     * 
-     * @return the number of stripes
+     * Records that a stripe holds objects after storing into it. If the stripe has been
+     * retired since this thread read the directory, the retiring drain may already have run,
+     * so the stripe's objects are moved back into the live stripes.
      */
-    public int stripeCount() {
-        return directory.get().stripes.length;
+    private void stored(Directory<T> dir, int idx) {
+        dir.markNonEmpty(idx);
+        Directory<T> current = directory.get();
+        if (current != dir) {
+            BoundedPool<T> stripe = dir.stripes[idx];
+            if (idx < current.stripes.length && current.stripes[idx] == stripe) {
+                current.markNonEmpty(idx);
+            } else {
+                rehome(stripe);
+            }
+        }
     }
     
     /**
-     * Returns the total capacity of the pool (sum of all stripe capacities).
+     * Moves objects released into a retired stripe back into the live stripes.
+     */
+    private void rehome(BoundedPool<T> retired) {
+        T obj;
+        while ((obj = retired.tryAcquire()) != null) {
+            if (!offer(obj)) {
+                drop(obj);
+            }
+        }
+    }
+    
+    /**
+     * Acquires a pooled object, waiting up to the given time for one to be released if every
+     * stripe is empty. Never allocates. Waiters are served in arrival order, and
+     * releases hand objects to them directly.
      * 
-     * @return the total capacity
+     * @param timeout the maximum time to wait
+     * @param unit the unit of {@code timeout}
+     * @return a pooled object, or null if none was released in time
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IllegalStateException with SPSC or MPSC stripes, since a release serving a
+     *         waiter takes from the stripes on the releasing thread
      */
-    public int totalCapacity() {
-        return stripeCount() * stripeSize;
+    public T acquire(long timeout, TimeUnit unit) throws InterruptedException {
+        checkSharedAcquire("Waiting for a release");
+        T obj = tryAcquire();
+        if (obj != null) {
+            return obj;
+        }
+        return waiters.await(unit.toNanos(timeout));
     }
     
     /**
-     * Returns the size of each individual stripe.
+     * Releases an object back to the pool. Attempts to return to a stripe, drops if all are full.
+     * A {@link Poolable} object is returned to the stripe it was taken from if that has room.
+     * With magazines enabled the object goes to the calling thread's magazine, which spills
+     * its older half to the stripes when full.
      * 
-     * @return the stripe size
+     * @param obj the object to release
+     * @return true if successfully returned to a stripe, false if dropped (after passing it
+     *         to the drop handler, if any); with magazines, false if the spill made room for
+     *         the object by dropping older ones
      */
-    public int stripeSize() {
-        return stripeSize;
+    public boolean release(T obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (resetAction != null) {
+            resetAction.accept(obj);
+        }
+        if (waiters.hasWaiters() && waiters.handOff(obj)) {
+            return true;
+        }
+        
+        int magSize = magazineSize;
+        if (magSize > 0) {
+            boolean spilledAll = magazineRelease(threadState.get(), obj, magSize);
+            if (waiters.hasWaiters()) {
+                waiters.transfer();
+            }
+            return spilledAll;
+        }
+        
+        boolean stored = offer(obj);
+        if (waiters.hasWaiters()) {
+            waiters.transfer();
+        }
+        if (!stored) {
+            drop(obj);
+        }
+        return stored;
     }
     
     /**
-     * Enables auto-growing with the specified configuration.
+     * Stores an already reset object, probing like {@link #probeAcquire} and then trying the
+     * stripes the occupancy bitmap marks non-full before giving up. A {@link Poolable} object
+     * goes straight back to its home stripe unless that stripe is full.
      * 
-     * @param config the auto-grow configuration
+     * @return true if stored, false if every stripe is full
      */
-    public void enableAutoGrow(AutoGrowConfig config) {
-        this.autoCfg = config;
+    private boolean offer(T obj) {
+        Directory<T> dir = directory.get();
+        int stripeCount = dir.stripes.length;
+        if (obj instanceof Poolable) {
+            int home = ((Poolable) obj).homeStripe() - 1;
+            if (home >= 0 && home < stripeCount) {
+                if (dir.stripes[home].offer(obj)) {
+                    stored(dir, home);
+                    GrowthPolicy policy = growthPolicy;
+                    if (policy != null) {
+                        policy.onRelease(1);
+                    }
+                    return true;
+                }
+                dir.markFull(home);
+            }
+        }
+        
+        ThreadState ts = threadState.get();
+        ProbeStrategy strategy = probeStrategy;
+        int limit = Math.min(probeLimit, stripeCount);
+        int idx = dir.first(ts, strategy, false);
+        boolean stored = false;
+        
+        for (int i = 0; i < limit && !stored; i++) {
+            int result = dir.stripes[idx].offerOnce(obj);
+            if (result == BoundedPool.OFFER_STORED) {
+                stored = true;
+            } else if (result == BoundedPool.OFFER_CONTENDED) {
+                idx = dir.contended(ts, strategy, idx, false);
+            } else {
+                dir.markFull(idx);
+                idx = dir.after(ts, strategy, idx, i, false);
+            }
+        }
+        
+        // Jump through the non-full bitmap, retrying lost CASes, before dropping
+        for (int i = 0; i < stripeCount && !stored; i++) {
+            idx = dir.nonFull.nextSetBit(idx);
+            if (idx < 0) {
+                break; // Every stripe is full
+            }
+            if (dir.stripes[idx].offer(obj)) {
+                stored = true;
+            } else {
+                dir.markFull(idx);
+                idx = dir.next(idx);
+            }
+        }
+        
+        if (stored) {
+            ts.stripe = idx;
+            stored(dir, idx);
+            GrowthPolicy policy = growthPolicy;
+            if (policy != null) {
+                policy.onRelease(1);
+            }
+        }
+        return stored;
     }
     
     /**
-     * Disables auto-growing.
+     * Accounts for an object that did not fit in any stripe and passes it to the drop
+     * handler.
      */
-    public void disableAutoGrow() {
-        this.autoCfg = null;
+    private void drop(T obj) {
+        dropped.incrementAndGet();
+        GrowthPolicy policy = growthPolicy;
+        if (policy != null) {
+            policy.onDrop(1);
+        }
+        discard(obj);
     }
     
     /**
-     * Returns whether auto-growing is enabled.
-     * 
-     * @return true if auto-growing is enabled
+     * Lets go of an object that leaves the pool, passing it to the drop handler.
      */
-    public boolean isAutoGrowEnabled() {
-        return autoCfg != null;
+    private void discard(T obj) {
+        missPolicy.onDrop(missAllocations, 1);
+        Consumer<? super T> handler = dropHandler;
+        if (handler != null) {
+            handler.accept(obj);
+        }
     }
     
     /**
-     * Enables auto-growing with background maintenance using a scheduled executor.
+     * Acquires up to {@code max} pooled objects without allocating, draining the hinted stripe
+     * first and moving on to the next probed stripe only when it runs dry.
      * 
-     * @param executor the scheduled executor for background maintenance
-     * @param config the auto-grow configuration
+     * @param dst the array to fill
+     * @param max the maximum number of objects to acquire
+     * @return the number of objects stored in {@code dst}
      */
-    public void enableAutoGrowWithMaintenance(ScheduledExecutorService executor, AutoGrowConfig config) {
-        this.autoCfg = config;
+    public int acquireBatch(T[] dst, int max) {
+        int limit = Math.min(max, dst.length);
+        if (limit <= 0) {
+            return 0;
+        }
         
-        // Schedule periodic maintenance to decay debt
-        executor.scheduleAtFixedRate(() -> {
-            long currentDebt = missDebt.get();
-            if (currentDebt > 0) {
-                missDebt.addAndGet(-Math.min(currentDebt, 1));
+        int acquired = takeBatch(threadState.get(), dst, limit);
+        if (acquired < limit) {
+            // Every stripe the bitmap marks non-empty has been drained: the pool ran dry
+            if (shrinkCfg != null) {
+                idleSinceNanos = System.nanoTime();
             }
-        }, 10, 10, TimeUnit.MILLISECONDS);
+            if (growthPolicy != null) {
+                maybeGrowOnMiss();
+            }
+        }
+        return acquired;
     }
     
     /**
-     * Attempts to grow the pool based on miss pressure and configuration.
-     * This method is called on allocation-on-miss in acquire().
+     * Moves up to {@code limit} objects from the probed stripes into {@code dst[0, limit)},
+     * then from the stripes the non-empty bitmap marks until the batch is complete, so a short
+     * batch means every stripe was found empty.
      */
-    private void maybeGrowOnMiss() {
-        AutoGrowConfig config = autoCfg;
-        if (config == null) {
-            return;
+    private int takeBatch(ThreadState ts, T[] dst, int limit) {
+        Directory<T> dir = directory.get();
+        int stripeCount = dir.stripes.length;
+        ProbeStrategy strategy = probeStrategy;
+        int probes = Math.min(probeLimit, stripeCount);
+        int idx = dir.first(ts, strategy, true);
+        int acquired = 0;
+        int lastIdx = idx;
+        
+        // Drain from the probed stripes first
+        for (int i = 0; i < probes && acquired < limit; idx = dir.after(ts, strategy, idx, i++, true)) {
+            int n = drain(dir, idx, dst, acquired, limit - acquired);
+            if (n > 0) {
+                acquired += n;
+                lastIdx = idx;
+            }
+        }
+        
+        // Complete the batch from the stripes the bitmap marks non-empty
+        for (int i = 0; i < stripeCount && acquired < limit; i++, idx = dir.next(idx)) {
+            idx = dir.nonEmpty.nextSetBit(idx);
+            if (idx < 0) {
+                break; // Every stripe is empty
+            }
+            int n = drain(dir, idx, dst, acquired, limit - acquired);
+            if (n > 0) {
+                acquired += n;
+                lastIdx = idx;
+            }
         }
         
-        long debt = missDebt.incrementAndGet();
+        if (acquired > 0) {
+            ts.stripe = lastIdx;
+            GrowthPolicy policy = growthPolicy;
+            if (policy != null) {
+                policy.onHit(acquired);
+            }
+        }
+        return acquired;
+    }
+    
+    /**
+     * Releases the first {@code count} objects of {@code src}, filling the hinted stripe first
+     * and spilling the remainder into the following stripes.
+     * 
+     * @param src the objects to release
+     * @param count the number of objects to release
+     * @return the number of objects returned to the pool; the rest were passed to the drop
+     *         handler, if any, and dropped
+     */
+    public int releaseBatch(T[] src, int count) {
+        int limit = Math.min(count, src.length);
+        if (limit <= 0) {
+            return 0;
+        }
+        BoundedPool.checkNoNulls(src, limit);
+        if (resetAction != null) {
+            for (int i = 0; i < limit; i++) {
+                resetAction.accept(src[i]);
+            }
+        }
+        int handedOff = 0;
+        while (handedOff < limit && waiters.hasWaiters() && waiters.handOff(src[handedOff])) {
+            handedOff++;
+        }
         
-        // Check if we've hit the threshold
-        if (debt < config.missBurstThreshold) {
-            return;
+        int released = handedOff + storeBatch(threadState.get(), src, handedOff, limit - handedOff);
+        if (waiters.hasWaiters()) {
+            waiters.transfer();
+        }
+        for (int i = released; i < limit; i++) {
+            drop(src[i]);
+        }
+        return released;
+    }
+    
+    /**
+     * Stores {@code src[offset, offset + count)} in the stripes without resetting, filling the
+     * probed stripe first and spilling into the following ones.
+     * 
+     * @return the number of objects stored, always a prefix of the range
+     */
+    private int storeBatch(ThreadState ts, T[] src, int offset, int count) {
+        if (count <= 0) {
+            return 0;
         }
+        Directory<T> dir = directory.get();
+        int stripeCount = dir.stripes.length;
+        ProbeStrategy strategy = probeStrategy;
+        int probes = Math.min(probeLimit, stripeCount);
+        int idx = dir.first(ts, strategy, false);
+        int stored = 0;
+        int lastIdx = idx;
         
-        // Check cooldown (skip if cooldownMillis is 0 for instant growth)
-        if (config.cooldownMillis > 0) {
-            long now = System.nanoTime();
-            long cooldownNanos = config.cooldownMillis * 1_000_000L;
-            if (now - lastGrowNanos < cooldownNanos) {
-                return;
+        for (int i = 0; i < probes && stored < count; idx = dir.after(ts, strategy, idx, i++, false)) {
+            int n = fill(dir, idx, src, offset + stored, count - stored);
+            if (n > 0) {
+                stored += n;
+                lastIdx = idx;
             }
         }
         
-        // Check max stripes limit
-        if (config.maxStripes > 0 && stripeCount() >= config.maxStripes) {
-            return;
+        // Spill into stripes the bitmap marks non-full; only drop once every stripe is full
+        for (int i = 0; i < stripeCount && stored < count; i++, idx = dir.next(idx)) {
+            idx = dir.nonFull.nextSetBit(idx);
+            if (idx < 0) {
+                break; // Every stripe is full
+            }
+            int n = fill(dir, idx, src, offset + stored, count - stored);
+            if (n > 0) {
+                stored += n;
+                lastIdx = idx;
+            }
         }
         
-        // Try to acquire growth guard and grow
-        if (growthGuard.compareAndSet(false, true)) {
-            try {
-                addStripes(config.addStripesPerEvent);
-                if (config.cooldownMillis > 0) {
-                    lastGrowNanos = System.nanoTime();
-                }
-                missDebt.addAndGet(-config.missBurstThreshold);
-            } finally {
-                growthGuard.set(false);
+        if (stored > 0) {
+            ts.stripe = lastIdx;
+            GrowthPolicy policy = growthPolicy;
+            if (policy != null) {
+                policy.onRelease(stored);
             }
         }
+        return stored;
+    }
+    
+    private int drain(Directory<T> dir, int idx, T[] dst, int offset, int max) {
+        int n = dir.stripes[idx].acquireBatchInto(dst, offset, max);
+        if (n > 0) {
+            taken(dir, idx);
+            for (int i = offset; i < offset + n; i++) {
+                setHome(dst[i], idx);
+            }
+        }
+        if (n < max) {
+            dir.markEmpty(idx);
+        }
+        return n;
+    }
+    
+    private int fill(Directory<T> dir, int idx, T[] src, int offset, int count) {
+        int n = dir.stripes[idx].releaseBatchFrom(src, offset, count);
+        if (n > 0) {
+            stored(dir, idx);
+        }
+        if (n < count) {
+            dir.markFull(idx);
+        }
+        return n;
+    }
+    
+    private Magazine magazine(ThreadState ts, int size) {
+        Magazine mag = ts.magazine;
+        if (mag == null || mag.items.length != size) {
+            if (mag != null) {
+                flush(ts, mag); // Magazine size was changed
+            }
+            mag = new Magazine(size);
+            ts.magazine = mag;
+        }
+        return mag;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private T magazineAcquire(ThreadState ts, int size) {
+        Magazine mag = magazine(ts, size);
+        if (mag.count == 0) {
+            // Refill half a magazine in one batch so the next releases still fit
+            mag.count = takeBatch(ts, (T[]) mag.items, (size + 1) / 2);
+            if (mag.count == 0) {
+                return null;
+            }
+        }
+        T obj = (T) mag.items[--mag.count];
+        mag.items[mag.count] = null;
+        return obj;
+    }
+    
+    /**
+     * Puts an object in the calling thread's magazine, spilling the older half first if full.
+     * 
+     * @return false if the spill dropped objects because the stripes were full
+     */
+    @SuppressWarnings("unchecked")
+    private boolean magazineRelease(ThreadState ts, T obj, int size) {
+        Magazine mag = magazine(ts, size);
+        boolean spilledAll = true;
+        if (mag.count == size) {
+            // Spill the older half in one batch, keeping the most recently released objects
+            int half = (size + 1) / 2;
+            int stored = storeBatch(ts, (T[]) mag.items, 0, half);
+            for (int i = stored; i < half; i++) {
+                drop((T) mag.items[i]);
+            }
+            spilledAll = stored == half;
+            mag.count -= half;
+            System.arraycopy(mag.items, half, mag.items, 0, mag.count);
+            Arrays.fill(mag.items, mag.count, size, null);
+        }
+        mag.items[mag.count++] = obj;
+        return spilledAll;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void flush(ThreadState ts, Magazine mag) {
+        int stored = storeBatch(ts, (T[]) mag.items, 0, mag.count);
+        for (int i = stored; i < mag.count; i++) {
+            drop((T) mag.items[i]);
+        }
+        Arrays.fill(mag.items, 0, mag.count, null);
+        mag.count = 0;
+    }
+    
+    /**
+     * Adds the specified number of new stripes to the pool. The stripes are built and filled
+     * first, outside the directory swap, so a lost swap only re-copies the stripe array.
+     * 
+     * @param count the number of stripes to add
+     */
+    @SuppressWarnings("unchecked")
+    public void addStripes(int count) {
+        if (count <= 0) {
+            return;
+        }
+        
+        // Build the new stripes once
+        BoundedPool<T>[] added = (BoundedPool<T>[]) new BoundedPool<?>[count];
+        BoundedPool<T>[] stripes = directory.get().stripes;
+        int size = stripes[stripes.length - 1].capacity();
+        for (int i = 0; i < count; i++) {
+            size = nextStripeSize(size);
+            added[i] = mode.newStripe(factory, null, size, prefill);
+        }
+        
+        while (true) {
+            Directory<T> current = directory.get();
+            BoundedPool<T>[] currentStripes = current.stripes;
+            int currentLength = currentStripes.length;
+            
+            // Create new array with additional stripes
+            BoundedPool<T>[] newStripes = Arrays.copyOf(currentStripes, currentLength + count);
+            System.arraycopy(added, 0, newStripes, currentLength, count);
+            
+            Directory<T> newDir = new Directory<>(newStripes);
+            
+            // Atomically swap the directory
+            if (directory.compareAndSet(current, newDir)) {
+                idleSinceNanos = System.nanoTime();
+                break;
+            }
+            // CAS failed, retry
+        }
+        serveWaiters();
+    }
+    
+    /**
+     * Returns the size of the stripe added after one of the given size: double the size, at
+     * least the base stripe size and at most the cap, with geometric growth enabled, otherwise
+     * the base stripe size.
+     */
+    private int nextStripeSize(int lastSize) {
+        int limit = maxStripeSize;
+        if (limit == 0) {
+            return stripeSize;
+        }
+        return lastSize >= limit >>> 1 ? limit : Math.max(stripeSize, lastSize << 1);
+    }
+    
+    /**
+     * Retires the most recently added stripes, never going below one stripe. The smaller
+     * directory is published first; the retired stripes are then drained and their objects
+     * passed to the drop handler, if any, and left to the GC. Threads that still hold the old
+     * directory may keep acquiring from a retired stripe, and an object they release into one
+     * is moved back into the live stripes.
+     * 
+     * @param count the number of stripes to remove
+     * @throws IllegalStateException if the stripes allow only one acquiring thread, since the
+     *         drain would be a second one
+     */
+    public void removeStripes(int count) {
+        checkSharedAcquire("Removing stripes");
+        if (count <= 0) {
+            return;
+        }
+        
+        while (true) {
+            Directory<T> current = directory.get();
+            BoundedPool<T>[] currentStripes = current.stripes;
+            int keep = Math.max(1, currentStripes.length - count);
+            if (keep == currentStripes.length) {
+                return;
+            }
+            
+            Directory<T> newDir = new Directory<>(Arrays.copyOf(currentStripes, keep));
+            if (directory.compareAndSet(current, newDir)) {
+                idleSinceNanos = System.nanoTime();
+                for (int i = keep; i < currentStripes.length; i++) {
+                    retire(currentStripes[i]);
+                }
+                return;
+            }
+            // CAS failed, retry
+        }
+    }
+    
+    /**
+     * Takes the given percentage of the objects pooled in each stripe out of the pool and
+     * passes them to the drop handler, if any, leaving them to the GC, as
+     * {@link ObjectPool#trim(int)} does. The stripes stay, so capacity is unchanged and
+     * releases fill them again. Used to give memory back under heap pressure; objects cached
+     * in per-thread magazines are not touched, and trimmed objects do not count as dropped. A
+     * no-op if the stripes allow only one acquiring thread.
+     * 
+     * @param percent the share of pooled objects to remove, 1-100
+     * @return the number of objects removed
+     */
+    public int trim(int percent) {
+        if (percent <= 0 || !sharedAcquire()) {
+            return 0;
+        }
+        int share = Math.min(100, percent);
+        int removed = 0;
+        for (BoundedPool<T> stripe : directory.get().stripes) {
+            int count = (int) ((long) stripe.occupancy() * share / 100);
+            T obj;
+            for (int i = 0; i < count && (obj = stripe.tryAcquire()) != null; i++) {
+                discard(obj);
+                removed++;
+            }
+        }
+        return removed;
+    }
+    
+    private void retire(BoundedPool<T> stripe) {
+        T obj;
+        while ((obj = stripe.tryAcquire()) != null) {
+            discard(obj);
+        }
+    }
+    
+    /**
+     * Fills the empty slots of every current stripe on the given executor, one task per stripe.
+     * The pool stays fully usable while the warm-up runs.
+     * 
+     * @param executor the executor that runs the factory
+     * @return a future that completes when every stripe has been warmed up
+     */
+    public CompletableFuture<Void> warmUp(Executor executor) {
+        BoundedPool<T>[] stripes = directory.get().stripes;
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[stripes.length];
+        for (int i = 0; i < stripes.length; i++) {
+            int idx = i;
+            BoundedPool<T> stripe = stripes[i];
+            tasks[i] = stripe.warmUp(executor).thenRun(() -> warmedUp(idx, stripe));
+        }
+        return CompletableFuture.allOf(tasks);
+    }
+    
+    /**
+     * Publishes a warmed-up stripe to the occupancy scan, which may have seen it empty, and
+     * hands its objects to threads parked in a timed acquire. Stripes are only ever appended
+     * or removed at the end, so a stripe that is still live keeps its index.
+     */
+    private void warmedUp(int idx, BoundedPool<T> stripe) {
+        Directory<T> dir = directory.get();
+        if (idx < dir.stripes.length && dir.stripes[idx] == stripe) {
+            dir.markNonEmpty(idx);
+        }
+        serveWaiters();
+    }
+    
+    /**
+     * Moves pooled objects to parked threads after objects reached the stripes other than
+     * through a release, which would have served them itself.
+     */
+    private void serveWaiters() {
+        if (waiters.hasWaiters()) {
+            waiters.transfer();
+        }
+    }
+    
+    /**
+     * Ensures the pool has at least the specified total capacity by adding stripes if necessary.
+     * 
+     * @param minTotalCapacity the minimum total capacity required
+     */
+    public void ensureCapacity(int minTotalCapacity) {
+        Directory<T> dir = directory.get();
+        long capacity = dir.capacity;
+        if (capacity >= minTotalCapacity) {
+            return;
+        }
+        
+        // Count the stripes addStripes would need, following geometric growth if enabled
+        int size = dir.stripes[dir.stripes.length - 1].capacity();
+        int stripesToAdd = 0;
+        while (capacity < minTotalCapacity) {
+            size = nextStripeSize(size);
+            capacity += size;
+            stripesToAdd++;
+        }
+        addStripes(stripesToAdd);
+    }
+    
+    /**
+     * Returns the current number of stripes in the pool.
+     * 
+     * @return the number of stripes
+     */
+    public int stripeCount() {
+        return directory.get().stripes.length;
+    }
+    
+    /**
+     * Returns the total capacity of the pool (sum of all stripe capacities).
+     * 
+     * @return the total capacity
+     */
+    public int totalCapacity() {
+        return directory.get().capacity;
+    }
+    
+    /**
+     * Returns the size of the initial stripes. Stripes added with geometric growth enabled
+     * may be larger.
+     * 
+     * @return the base stripe size
+     */
+    public int stripeSize() {
+        return stripeSize;
+    }
+    
+    /**
+     * Returns the implementation used for each stripe.
+     * 
+     * @return the stripe pool mode
+     */
+    public PoolMode mode() {
+        return mode;
+    }
+    
+    /**
+     * Sets the order in which stripes are probed before the occupancy bitmaps are scanned.
+     * 
+     * @param strategy the probe strategy
+     */
+    public void setProbeStrategy(ProbeStrategy strategy) {
+        if (strategy == null) {
+            throw new IllegalArgumentException("Probe strategy cannot be null");
+        }
+        this.probeStrategy = strategy;
+    }
+    
+    /**
+     * Returns the order in which stripes are probed.
+     * 
+     * @return the probe strategy
+     */
+    public ProbeStrategy probeStrategy() {
+        return probeStrategy;
+    }
+    
+    /**
+     * Sets how many single-attempt probes an acquire or release makes before scanning the
+     * occupancy bitmaps. Fewer probes reach the scan sooner; more probes spread threads over
+     * more stripes before they settle.
+     * 
+     * @param limit the number of probes, at least 1
+     */
+    public void setProbeLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Probe limit must be positive");
+        }
+        this.probeLimit = limit;
+    }
+    
+    /**
+     * Returns how many probes are made before scanning the occupancy bitmaps.
+     * 
+     * @return the probe limit
+     */
+    public int probeLimit() {
+        return probeLimit;
+    }
+    
+    /**
+     * Makes every stripe added from now on twice the size of the last stripe, up to
+     * {@code maxStripeSize}, so a pool that grows large keeps a short directory and few stripes
+     * to probe. Threads are spread over stripes of different sizes in proportion to their
+     * capacity. Existing stripes keep their size.
+     * 
+     * @param maxStripeSize the size of the largest stripe to add (will be rounded up to power of 2)
+     */
+    public void enableGeometricGrowth(int maxStripeSize) {
+        if (maxStripeSize <= 0) {
+            throw new IllegalArgumentException("Max stripe size must be positive");
+        }
+        this.maxStripeSize = Math.max(stripeSize, nextPowerOfTwo(maxStripeSize));
+    }
+    
+    /**
+     * Disables geometric growth; stripes added from now on have the base stripe size.
+     */
+    public void disableGeometricGrowth() {
+        this.maxStripeSize = 0;
+    }
+    
+    /**
+     * Returns whether geometric growth is enabled.
+     * 
+     * @return true if added stripes grow geometrically
+     */
+    public boolean isGeometricGrowthEnabled() {
+        return maxStripeSize != 0;
+    }
+    
+    /**
+     * Puts a private magazine of up to {@code size} objects in front of the stripes for each
+     * thread that uses the pool. Acquires and releases are served from the calling thread's
+     * magazine with no atomic instructions; only an empty or full magazine touches the stripes,
+     * moving half a magazine in one batch.
+     * 
+     * <p>Objects held in a magazine are invisible to other threads. A thread that stops using
+     * the pool should call {@link #flushMagazine()}, otherwise its cached objects are left to
+     * the GC when the thread ends.
+     * 
+     * @param size the number of objects each thread may cache
+     */
+    public void enableMagazines(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Magazine size must be positive");
+        }
+        this.magazineSize = size;
+    }
+    
+    /**
+     * Disables per-thread magazines and returns the calling thread's cached objects to the
+     * stripes. Other threads' cached objects stay put until they call {@link #flushMagazine()}.
+     */
+    public void disableMagazines() {
+        this.magazineSize = 0;
+        flushMagazine();
+    }
+    
+    /**
+     * Returns the calling thread's cached objects to the stripes, dropping any that do not fit.
+     */
+    public void flushMagazine() {
+        ThreadState ts = threadState.get();
+        if (ts.magazine != null) {
+            flush(ts, ts.magazine);
+            ts.magazine = null;
+        }
+    }
+    
+    /**
+     * Returns the per-thread magazine size.
+     * 
+     * @return the magazine size, or 0 if magazines are disabled
+     */
+    public int magazineSize() {
+        return magazineSize;
+    }
+    
+    /**
+     * Sets what {@link #acquire()} does when every stripe is empty.
+     * 
+     * @param policy the miss policy
+     * @throws IllegalStateException if the policy blocks and the stripes are SPSC or MPSC,
+     *         see {@link #acquire(long, TimeUnit)}
+     */
+    public void setMissPolicy(MissPolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("Miss policy cannot be null");
+        }
+        if (policy.action == MissPolicy.Action.BLOCK) {
+            checkSharedAcquire("Blocking on a miss");
+        }
+        this.missPolicy = policy;
+    }
+    
+    /**
+     * Returns what {@link #acquire()} does when every stripe is empty.
+     * 
+     * @return the miss policy
+     */
+    public MissPolicy missPolicy() {
+        return missPolicy;
+    }
+    
+    /**
+     * Sets a handler for objects released while every stripe is full, for example to
+     * dispose of a native resource or to forward the object to an overflow pool. The handler
+     * runs on the releasing thread, only after every stripe was found full, and receives the
+     * already reset object.
+     * 
+     * @param handler the drop handler, or null to leave dropped objects to the GC
+     */
+    public void setDropHandler(Consumer<? super T> handler) {
+        this.dropHandler = handler;
+    }
+    
+    /**
+     * Returns the number of released objects that were dropped because every stripe was full.
+     * 
+     * @return the dropped-object count
+     */
+    public long droppedCount() {
+        return dropped.get();
+    }
+    
+    /**
+     * Enables auto-growing with the specified configuration, as a
+     * {@link ThresholdGrowthPolicy}.
+     * 
+     * @param config the auto-grow configuration, or null to disable auto-growing
+     */
+    public void enableAutoGrow(AutoGrowConfig config) {
+        if (config == null) {
+            disableAutoGrow();
+            return;
+        }
+        enableAutoGrow(new ThresholdGrowthPolicy(config));
+    }
+    
+    /**
+     * Enables auto-growing driven by the given policy. The policy is consulted after every
+     * miss, and its decisions are applied off the acquiring thread, on the growth executor
+     * (see {@link #setGrowthExecutor(Executor)}), so a miss never builds or fills stripes.
+     * Shrink decisions are ignored when the stripes allow only one acquiring thread.
+     * 
+     * @param policy the growth policy
+     */
+    public void enableAutoGrow(GrowthPolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("Growth policy cannot be null");
+        }
+        cancelGrowthTask();
+        this.growthPolicy = policy;
+    }
+    
+    /**
+     * Disables auto-growing and cancels its maintenance task, if any.
+     */
+    public void disableAutoGrow() {
+        this.growthPolicy = null;
+        cancelGrowthTask();
+    }
+    
+    /**
+     * Returns whether auto-growing is enabled.
+     * 
+     * @return true if auto-growing is enabled
+     */
+    public boolean isAutoGrowEnabled() {
+        return growthPolicy != null;
+    }
+    
+    /**
+     * Returns the policy that drives auto-growing.
+     * 
+     * @return the growth policy, or null if auto-growing is disabled
+     */
+    public GrowthPolicy growthPolicy() {
+        return growthPolicy;
+    }
+    
+    /**
+     * Limits auto-growing by memory rather than stripe count: the growth policy's decisions
+     * are trimmed to the pool's byte budget and vetoed while the heap is under pressure, and
+     * above the budget's shed threshold every growth evaluation retires a stripe instead
+     * (except with SPSC or MPSC stripes, which are never retired). Explicit
+     * {@link #addStripes(int)} and {@link #ensureCapacity(int)} calls are not limited.
+     * 
+     * @param budget the memory budget, or null for none
+     */
+    public void setMemoryBudget(MemoryBudget budget) {
+        this.memoryBudget = budget;
+    }
+    
+    /**
+     * Returns the memory budget that limits auto-growing.
+     * 
+     * @return the memory budget, or null if none
+     */
+    public MemoryBudget memoryBudget() {
+        return memoryBudget;
+    }
+    
+    /**
+     * Runs the resizes decided by the growth policy on the given executor. The new stripes
+     * are built and filled there and then published, so a miss never waits for the factory
+     * beyond the one object its miss policy may allocate itself; misses while a resize is
+     * pending do not trigger another one.
+     * 
+     * <p>Without a growth executor, resizes run on the maintenance executor if auto-growing
+     * was enabled with one, and otherwise on a daemon thread shared by all pools. Pass
+     * {@link #INLINE_GROWTH} to resize on the thread that missed instead. A resize the
+     * executor rejects is handed to the shared thread. If the executor is an
+     * {@link ExecutorService} that has been shut down, a resize it never ran is abandoned and
+     * the next decision goes to the shared thread; an executor that silently discards tasks
+     * otherwise stalls auto-growing until the executor is replaced.
+     * 
+     * @param executor the executor that builds and publishes resizes, or null for the default
+     */
+    public void setGrowthExecutor(Executor executor) {
+        this.growthExecutor = executor;
+        this.pendingResize = null; // Whatever the old executor still holds no longer blocks growth
+    }
+    
+    /**
+     * Returns the executor set to run resizes decided by the growth policy.
+     * 
+     * @return the growth executor, or null if the default is used
+     */
+    public Executor growthExecutor() {
+        return growthExecutor;
+    }
+    
+    /**
+     * Enables auto-growing with background maintenance using a scheduled executor.
+     * 
+     * @param executor the scheduled executor for background maintenance
+     * @param config the auto-grow configuration
+     */
+    public void enableAutoGrowWithMaintenance(ScheduledExecutorService executor, AutoGrowConfig config) {
+        enableAutoGrowWithMaintenance(executor, new ThresholdGrowthPolicy(config));
+    }
+    
+    /**
+     * Enables auto-growing driven by the given policy, plus a maintenance task that ticks the
+     * policy and applies its decision every 10 ms, so that decisions such as shrinking are
+     * also taken while nothing misses.
+     * 
+     * @param executor the scheduled executor for background maintenance
+     * @param policy the growth policy
+     */
+    public void enableAutoGrowWithMaintenance(ScheduledExecutorService executor, GrowthPolicy policy) {
+        enableAutoGrow(policy);
+        this.maintenanceExecutor = executor;
+        this.growthTask = executor.scheduleAtFixedRate(() -> evaluateGrowth(policy, true),
+            10, 10, TimeUnit.MILLISECONDS);
+    }
+    
+    private void cancelGrowthTask() {
+        maintenanceExecutor = null;
+        ScheduledFuture<?> task = growthTask;
+        if (task != null) {
+            task.cancel(false);
+            growthTask = null;
+        }
+    }
+    
+    /**
+     * Enables idle-driven shrinking: a task on the given executor checks the pool every
+     * {@code idleMillis} and, once no acquire has missed for that long, retires
+     * {@code removeStripesPerEvent} stripes, keeping at least {@code minStripes}. Each shrink
+     * restarts the idle period, so a pool that stays idle shrinks step by step.
+     * 
+     * @param executor the scheduled executor that runs the checks
+     * @param config the shrink configuration
+     * @throws IllegalStateException if the stripes allow only one acquiring thread
+     */
+    public void enableAutoShrink(ScheduledExecutorService executor, ShrinkConfig config) {
+        checkSharedAcquire("Shrinking");
+        disableAutoShrink();
+        this.shrinkCfg = config;
+        this.idleSinceNanos = System.nanoTime();
+        this.shrinkTask = executor.scheduleAtFixedRate(this::maybeShrink,
+            config.idleMillis, config.idleMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Disables idle-driven shrinking and cancels its scheduled checks.
+     */
+    public void disableAutoShrink() {
+        this.shrinkCfg = null;
+        ScheduledFuture<?> task = shrinkTask;
+        if (task != null) {
+            task.cancel(false);
+            shrinkTask = null;
+        }
+    }
+    
+    /**
+     * Returns whether idle-driven shrinking is enabled.
+     * 
+     * @return true if auto-shrinking is enabled
+     */
+    public boolean isAutoShrinkEnabled() {
+        return shrinkCfg != null;
+    }
+    
+    /**
+     * Enables background rebalancing: a task on the given executor runs
+     * {@link #rebalance(RebalanceConfig)} every {@code intervalMillis}, so a pipeline that
+     * acquires on some threads and releases on others keeps finding objects in the
+     * acquirers' stripes instead of missing while the releasers' stripes overflow.
+     * 
+     * @param executor the scheduled executor that runs the rebalancing passes
+     * @param config the rebalance configuration
+     * @throws IllegalStateException if the stripes allow only one acquiring thread
+     */
+    public void enableRebalancing(ScheduledExecutorService executor, RebalanceConfig config) {
+        checkSharedAcquire("Rebalancing");
+        disableRebalancing();
+        this.rebalanceTask = executor.scheduleAtFixedRate(() -> rebalance(config),
+            config.intervalMillis, config.intervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Disables background rebalancing and cancels its scheduled passes.
+     */
+    public void disableRebalancing() {
+        ScheduledFuture<?> task = rebalanceTask;
+        if (task != null) {
+            task.cancel(false);
+            rebalanceTask = null;
+        }
+    }
+    
+    /**
+     * Returns whether background rebalancing is enabled.
+     * 
+     * @return true if rebalancing is enabled
+     */
+    public boolean isRebalancingEnabled() {
+        return rebalanceTask != null;
+    }
+    
+    /**
+     * Moves objects in bulk from stripes filled to at least the high watermark into stripes
+     * filled to at most the low watermark. Each full stripe gives up to
+     * {@code maxMovePerStripe} objects to one empty stripe, bringing both towards half full;
+     * objects that no longer fit in the receiving stripe are released normally.
+     * 
+     * @param config the watermarks and batch size
+     * @return the number of objects moved
+     * @throws IllegalStateException if the stripes allow only one acquiring thread
+     */
+    @SuppressWarnings("unchecked")
+    public int rebalance(RebalanceConfig config) {
+        checkSharedAcquire("Rebalancing");
+        Directory<T> dir = directory.get();
+        BoundedPool<T>[] stripes = dir.stripes;
+        T[] buffer = null;
+        int moved = 0;
+        int receiver = 0;
+        
+        for (int donor = 0; donor < stripes.length; donor++) {
+            if (fillPercent(stripes[donor]) < config.highWatermarkPercent) {
+                continue;
+            }
+            while (receiver < stripes.length
+                && (receiver == donor || fillPercent(stripes[receiver]) > config.lowWatermarkPercent)) {
+                receiver++;
+            }
+            if (receiver == stripes.length) {
+                break; // No stripe is short of objects
+            }
+            
+            BoundedPool<T> from = stripes[donor];
+            BoundedPool<T> to = stripes[receiver];
+            int surplus = from.occupancy() - (from.capacity() >>> 1);
+            int deficit = (to.capacity() >>> 1) - to.occupancy();
+            int count = Math.min(config.maxMovePerStripe, Math.min(surplus, deficit));
+            if (count > 0) {
+                if (buffer == null) {
+                    buffer = (T[]) new Object[config.maxMovePerStripe];
+                }
+                int taken = drain(dir, donor, buffer, 0, count);
+                int stored = fill(dir, receiver, buffer, 0, taken);
+                for (int i = stored; i < taken; i++) {
+                    if (!offer(buffer[i])) {
+                        drop(buffer[i]);
+                    }
+                }
+                Arrays.fill(buffer, 0, taken, null);
+                moved += stored;
+            }
+            receiver++;
+        }
+        
+        if (moved > 0) {
+            rebalanced.addAndGet(moved);
+        }
+        return moved;
+    }
+    
+    /**
+     * Returns the number of objects moved between stripes by rebalancing.
+     * 
+     * @return the rebalanced-object count
+     */
+    public long rebalancedCount() {
+        return rebalanced.get();
+    }
+    
+    /**
+     * Returns whether threads other than the pool's single consumer may take objects out of
+     * the stripes, as moving, retiring and trimming them does. SPSC and MPSC rings would be
+     * corrupted by a second acquiring thread.
+     */
+    private boolean sharedAcquire() {
+        return mode != PoolMode.SPSC && mode != PoolMode.MPSC;
+    }
+    
+    private void checkSharedAcquire(String operation) {
+        if (!sharedAcquire()) {
+            throw new IllegalStateException(operation + " needs stripes that allow several acquiring threads");
+        }
+    }
+    
+    private static int fillPercent(BoundedPool<?> stripe) {
+        return (int) (stripe.occupancy() * 100L / stripe.capacity());
+    }
+    
+    private void maybeShrink() {
+        ShrinkConfig config = shrinkCfg;
+        if (config == null) {
+            return;
+        }
+        if (System.nanoTime() - idleSinceNanos < config.idleMillis * 1_000_000L) {
+            return; // Missed recently
+        }
+        int excess = stripeCount() - config.minStripes;
+        if (excess > 0) {
+            removeStripes(Math.min(excess, config.removeStripesPerEvent));
+        }
+    }
+    
+    /**
+     * Reports a miss to the growth policy and applies its decision.
+     * This method is called on allocation-on-miss in acquire().
+     */
+    private void maybeGrowOnMiss() {
+        GrowthPolicy policy = growthPolicy;
+        if (policy == null) {
+            return;
+        }
+        policy.onMiss();
+        evaluateGrowth(policy, false);
+    }
+    
+    /**
+     * Asks the policy for a decision and hands it to the growth executor. The guard keeps
+     * decisions single-threaded; a thread that finds it taken skips the evaluation.
+     * Evaluations are also skipped until a handed-off resize has run, so misses in the
+     * meantime do not queue further resizes. The guard itself is never held by the executor,
+     * so a task the executor drops cannot stop evaluations for good.
+     */
+    private void evaluateGrowth(GrowthPolicy policy, boolean tick) {
+        if (!growthGuard.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Executor executor = growthExecutor;
+            if (executor == null) {
+                Executor maintenance = maintenanceExecutor;
+                executor = maintenance != null ? maintenance : GrowthBuilder.EXECUTOR;
+            }
+            FutureTask<?> pending = pendingResize;
+            if (pending != null && !pending.isDone() && !abandoned(pending, executor)) {
+                return;
+            }
+            if (tick) {
+                policy.onTick();
+            }
+            GrowthDecision decision = withinBudget(policy.decide(stripeCount()));
+            if (decision.action == GrowthDecision.Action.HOLD) {
+                return;
+            }
+            FutureTask<?> task = new FutureTask<>(() -> resize(decision), null);
+            pendingResize = task;
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                GrowthBuilder.EXECUTOR.execute(task); // Executor shut down; build on the shared thread
+            }
+        } finally {
+            growthGuard.set(false);
+        }
+    }
+    
+    /**
+     * Gives up on a resize that a shut-down growth executor will never run, cancelling it in
+     * case it is still queued.
+     * 
+     * @return true if the resize will not run
+     */
+    private static boolean abandoned(FutureTask<?> pending, Executor executor) {
+        return executor instanceof ExecutorService && ((ExecutorService) executor).isShutdown()
+            && pending.cancel(false);
+    }
+    
+    /**
+     * Vetoes or trims a growth that the memory budget does not allow, and turns any decision
+     * into retiring a stripe while the heap is above the shed threshold.
+     */
+    private GrowthDecision withinBudget(GrowthDecision decision) {
+        MemoryBudget budget = memoryBudget;
+        if (budget == null
+            || (decision.action != GrowthDecision.Action.GROW && budget.shedHeapPercent == 0)) {
+            return decision;
+        }
+        
+        int heap = budget.heapPercent();
+        if (budget.shedHeapPercent > 0 && heap >= budget.shedHeapPercent) {
+            return stripeCount() > 1 && sharedAcquire() ? GrowthDecision.shrink(1) : GrowthDecision.HOLD;
+        }
+        if (decision.action != GrowthDecision.Action.GROW) {
+            return decision;
+        }
+        if (heap >= budget.maxHeapPercent) {
+            return GrowthDecision.HOLD;
+        }
+        
+        // Add only the stripes that fit in the byte budget
+        Directory<T> dir = directory.get();
+        long capacity = dir.capacity;
+        int size = dir.stripes[dir.stripes.length - 1].capacity();
+        int maxCapacity = budget.maxCapacity();
+        int allowed = 0;
+        while (allowed < decision.stripes) {
+            size = nextStripeSize(size);
+            if (capacity + size > maxCapacity) {
+                break;
+            }
+            capacity += size;
+            allowed++;
+        }
+        if (allowed == decision.stripes) {
+            return decision;
+        }
+        return allowed > 0 ? GrowthDecision.grow(allowed) : GrowthDecision.HOLD;
+    }
+    
+    private void resize(GrowthDecision decision) {
+        if (decision.action == GrowthDecision.Action.GROW) {
+            addStripes(decision.stripes);
+        } else if (decision.action == GrowthDecision.Action.SHRINK && sharedAcquire()) {
+            removeStripes(decision.stripes);
+        }
+    }
+    
+    /**
+     * Seeds a thread's probe from its id, spread so consecutive ids land on different stripes.
+     */
+    private static int initialProbe() {
+        int probe = (int) ((Thread.currentThread().getId() * 0x9E3779B97F4A7C15L) >>> 32);
+        return probe != 0 ? probe : 1;
     }
     
     /**
-     * Decays miss debt when a pooled object is successfully acquired or released.
-     * This helps prevent runaway growth in steady state.
+     * Moves a probe to a pseudo-random new stripe (xorshift, as LongAdder does on contention).
      */
-    private void decayMissDebt() {
-        long currentDebt = missDebt.get();
-        if (currentDebt > 0) {
-            missDebt.addAndGet(-Math.min(currentDebt, 1));
+    private static int advanceProbe(int probe) {
+        if (probe == 0) {
+            probe = 1;
         }
+        probe ^= probe << 13;
+        probe ^= probe >>> 17;
+        probe ^= probe << 5;
+        return probe;
     }
     
     /**
@@ -0,0 +1,72 @@
+package com.suko.pool;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Grows whenever the hit ratio over the last {@code minSamples} acquires falls short of a
+ * target, by a number of stripes proportional to the shortfall: a pool that hits 50% of the
+ * time against a 99% target grows by about half its stripes at once instead of one stripe per
+ * burst. Never shrinks; combine with {@link StripedObjectPool#enableAutoShrink} for that.
+ */
+public final class TargetHitRatioGrowthPolicy implements GrowthPolicy {
+    private final double targetHitRatio;
+    private final int minSamples;
+    private final int maxStripes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param targetHitRatio the fraction of acquires that should find a pooled object, in (0, 1]
+     * @param minSamples the number of acquires to observe before each decision
+     * @param maxStripes the most stripes to grow to (0 = unbounded)
+     */
+    public TargetHitRatioGrowthPolicy(double targetHitRatio, int minSamples, int maxStripes) {
+        if (!(targetHitRatio > 0 && targetHitRatio <= 1)) {
+            throw new IllegalArgumentException("Target hit ratio must be in (0, 1]");
+        }
+        this.targetHitRatio = targetHitRatio;
+        this.minSamples = Math.max(1, minSamples);
+        this.maxStripes = maxStripes; // <=0 means unbounded
+    }
+
+    @Override
+    public void onHit(int count) {
+        hits.add(count);
+    }
+
+    @Override
+    public void onMiss() {
+        misses.increment();
+    }
+
+    @Override
+    public void onRelease(int count) {
+    }
+
+    @Override
+    public void onDrop(int count) {
+    }
+
+    @Override
+    public GrowthDecision decide(int stripeCount) {
+        long windowMisses = misses.sum();
+        long windowHits = hits.sum();
+        long samples = windowMisses + windowHits;
+        if (samples < minSamples) {
+            return GrowthDecision.HOLD;
+        }
+        misses.add(-windowMisses);
+        hits.add(-windowHits);
+
+        double hitRatio = (double) windowHits / samples;
+        if (hitRatio >= targetHitRatio) {
+            return GrowthDecision.HOLD;
+        }
+        int add = (int) Math.ceil(stripeCount * (targetHitRatio - hitRatio));
+        if (maxStripes > 0) {
+            add = Math.min(add, maxStripes - stripeCount);
+        }
+        return add > 0 ? GrowthDecision.grow(add) : GrowthDecision.HOLD;
+    }
+}
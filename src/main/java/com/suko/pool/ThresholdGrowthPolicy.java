@@ -0,0 +1,96 @@
+package com.suko.pool;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Grows by a fixed number of stripes once misses outnumber recent hits and releases by a
+ * threshold, with a cooldown between growths: the behaviour configured by an
+ * {@link AutoGrowConfig}. Never shrinks.
+ *
+ * <p>Misses and hits are counted in striped {@link LongAdder} cells, so the signals on the
+ * pool's hot path never contend on one cache line. The miss debt itself is only settled when
+ * a decision is evaluated, which the pool does after every miss: hits counted since the last
+ * settlement pay off the debt carried from before, and new misses add to it.
+ */
+public final class ThresholdGrowthPolicy implements GrowthPolicy {
+    private final AutoGrowConfig config;
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder hits = new LongAdder(); // Pooled acquires and releases
+
+    // Only touched by decide() and onTick()
+    private long missDebt;
+    private long lastGrowNanos;
+
+    public ThresholdGrowthPolicy(AutoGrowConfig config) {
+        if (config == null) {
+            throw new IllegalArgumentException("Config cannot be null");
+        }
+        this.config = config;
+    }
+
+    @Override
+    public void onHit(int count) {
+        hits.add(count);
+    }
+
+    @Override
+    public void onMiss() {
+        misses.increment();
+    }
+
+    @Override
+    public void onRelease(int count) {
+        hits.add(count);
+    }
+
+    @Override
+    public void onDrop(int count) {
+    }
+
+    @Override
+    public void onTick() {
+        settle();
+        if (missDebt > 0) {
+            missDebt--;
+        }
+    }
+
+    @Override
+    public GrowthDecision decide(int stripeCount) {
+        settle();
+        if (missDebt < config.missBurstThreshold) {
+            return GrowthDecision.HOLD;
+        }
+        if (config.maxStripes > 0 && stripeCount >= config.maxStripes) {
+            return GrowthDecision.HOLD;
+        }
+        // Skip the clock when cooldownMillis is 0 for instant growth
+        if (config.cooldownMillis > 0) {
+            long now = System.nanoTime();
+            if (lastGrowNanos != 0 && now - lastGrowNanos < config.cooldownMillis * 1_000_000L) {
+                return GrowthDecision.HOLD;
+            }
+            lastGrowNanos = now;
+        }
+        missDebt -= config.missBurstThreshold;
+        return GrowthDecision.grow(config.addStripesPerEvent);
+    }
+
+    /**
+     * Folds the counted signals into the debt. Hits only pay off debt that existed before
+     * them, so steady-state hits cannot bank credit against a later burst of misses.
+     */
+    private void settle() {
+        long paid = Math.min(hits.sumThenReset(), missDebt);
+        missDebt += misses.sumThenReset() - paid;
+    }
+
+    /**
+     * Returns the configuration this policy follows.
+     *
+     * @return the auto-grow configuration
+     */
+    public AutoGrowConfig config() {
+        return config;
+    }
+}
@@ -0,0 +1,20 @@
+package com.suko.pool;
+
+/**
+ * Configuration for trimming the pools registered in {@link Pools} when a garbage collection
+ * pushes old-generation occupancy to {@code oldGenPercent} or above. Each trim gives back
+ * {@code trimPercent} of every pool's pooled objects.
+ */
+public final class TrimConfig {
+    public final int oldGenPercent;
+    public final int trimPercent;
+
+    public TrimConfig(int oldGenPercent, int trimPercent) {
+        this.oldGenPercent = Math.min(100, Math.max(1, oldGenPercent));
+        this.trimPercent = Math.min(100, Math.max(1, trimPercent));
+    }
+
+    public static TrimConfig withDefaults() {
+        return new TrimConfig(75, 25);
+    }
+}
@@ -0,0 +1,168 @@
+package com.suko.pool;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * FIFO queue of threads parked in a timed acquire, with direct handoff from releasers.
+ *
+ * <p>Releasers only pay a volatile read of the waiter count while nobody is waiting. A waiter
+ * registers itself (count, then queue) before re-polling the pool, and a releaser that stored
+ * an object in the pool re-checks the count afterwards; so either the waiter's re-poll sees the
+ * object or the releaser sees the waiter and moves an object across with {@link #transfer()}.
+ *
+ * @param <T> the type of pooled objects
+ */
+final class Waiters<T> {
+    private static final VarHandle ITEM;
+    private static final Object CANCELLED = new Object();
+
+    static {
+        try {
+            ITEM = MethodHandles.lookup().findVarHandle(Node.class, "item", Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final class Node {
+        final Thread thread;
+        volatile Object item; // null while waiting, then the handed-off object or CANCELLED
+
+        Node(Thread thread) {
+            this.thread = thread;
+        }
+    }
+
+    private final ConcurrentLinkedQueue<Node> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Supplier<T> poller;
+    private final Predicate<T> offerer;
+    private final Consumer<T> dropper;
+
+    /**
+     * @param poller takes an object from the pool without allocating, or returns null
+     * @param offerer stores an object in the pool without resetting it
+     * @param dropper drops an object the pool had no room to take back
+     */
+    Waiters(Supplier<T> poller, Predicate<T> offerer, Consumer<T> dropper) {
+        this.poller = poller;
+        this.offerer = offerer;
+        this.dropper = dropper;
+    }
+
+    boolean hasWaiters() {
+        return waiting.get() != 0;
+    }
+
+    /**
+     * Hands an object to the longest-waiting thread.
+     *
+     * @return true if a waiter took the object
+     */
+    boolean handOff(T object) {
+        Node node;
+        while ((node = queue.poll()) != null) {
+            if (ITEM.compareAndSet(node, null, object)) {
+                LockSupport.unpark(node.thread);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves objects from the pool to waiters that registered while a release was storing into
+     * the pool.
+     */
+    void transfer() {
+        while (hasWaiters()) {
+            T object = poller.get();
+            if (object == null) {
+                return;
+            }
+            if (!handOff(object)) {
+                restore(object); // Waiter not queued yet; it will re-poll the pool
+                return;
+            }
+        }
+    }
+
+    /**
+     * Parks the calling thread until an object is handed over or the timeout elapses.
+     *
+     * @param nanos the maximum time to wait
+     * @return the object, or null if the timeout elapsed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @SuppressWarnings("unchecked")
+    T await(long nanos) throws InterruptedException {
+        Node node = new Node(Thread.currentThread());
+        waiting.incrementAndGet();
+        queue.add(node);
+        try {
+            T object = poller.get(); // Re-check after registering so no release is missed
+            if (object != null) {
+                if (!cancel(node)) {
+                    giveBack((T) node.item); // A releaser handed one over as well
+                }
+                return object;
+            }
+
+            long deadline = System.nanoTime() + nanos;
+            while (true) {
+                Object item = node.item;
+                if (item != null) {
+                    return (T) item;
+                }
+                long remaining = deadline - System.nanoTime();
+                boolean interrupted = Thread.interrupted();
+                if (remaining <= 0 || interrupted) {
+                    if (cancel(node)) {
+                        if (interrupted) {
+                            throw new InterruptedException();
+                        }
+                        return null;
+                    }
+                    if (interrupted) {
+                        Thread.currentThread().interrupt(); // Keep the status, the object arrived first
+                    }
+                    return (T) node.item;
+                }
+                LockSupport.parkNanos(this, remaining);
+            }
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    private boolean cancel(Node node) {
+        if (ITEM.compareAndSet(node, null, CANCELLED)) {
+            queue.remove(node);
+            return true;
+        }
+        return false;
+    }
+
+    private void giveBack(T object) {
+        if (!handOff(object)) {
+            restore(object);
+        }
+    }
+
+    /**
+     * Puts an object taken out for a waiter back into the pool, or drops it if releases
+     * filled the pool in the meantime.
+     */
+    private void restore(T object) {
+        if (!offerer.test(object)) {
+            dropper.accept(object);
+        }
+    }
+}
@@ -1,3 +1,5 @@
 module com.suko.fastpool {
+    requires java.management;
+
     exports com.suko.pool;
 }
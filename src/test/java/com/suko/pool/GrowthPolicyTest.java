@@ -0,0 +1,164 @@
+package com.suko.pool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for the shipped growth policies and how StripedObjectPool applies their decisions.
+ */
+public class GrowthPolicyTest {
+
+    @Test
+    public void testThresholdPolicyPaysOffDebt() {
+        ThresholdGrowthPolicy policy = new ThresholdGrowthPolicy(new AutoGrowConfig(2, 0, 3, 0));
+        policy.onMiss();
+        policy.onMiss();
+        Assert.assertEquals(GrowthDecision.Action.HOLD, policy.decide(1).action);
+
+        policy.onHit(1); // Debt 1
+        policy.onMiss();
+        Assert.assertEquals(GrowthDecision.Action.HOLD, policy.decide(1).action);
+
+        policy.onMiss(); // Debt 3
+        GrowthDecision decision = policy.decide(1);
+        Assert.assertEquals(GrowthDecision.Action.GROW, decision.action);
+        Assert.assertEquals(2, decision.stripes);
+        Assert.assertEquals("Growing pays off the threshold", GrowthDecision.Action.HOLD, policy.decide(3).action);
+    }
+
+    @Test
+    public void testThresholdPolicyHitsDoNotBankCredit() {
+        ThresholdGrowthPolicy policy = new ThresholdGrowthPolicy(new AutoGrowConfig(1, 0, 3, 0));
+        policy.onHit(1000);
+        policy.onRelease(1000);
+        for (int i = 0; i < 3; i++) {
+            policy.onMiss();
+            if (i < 2) {
+                Assert.assertEquals(GrowthDecision.Action.HOLD, policy.decide(1).action);
+            }
+        }
+        Assert.assertEquals("Earlier hits must not offset a burst of misses",
+            GrowthDecision.Action.GROW, policy.decide(1).action);
+    }
+
+    @Test
+    public void testThresholdPolicyCountsConcurrentSignals() throws InterruptedException {
+        ThresholdGrowthPolicy policy = new ThresholdGrowthPolicy(new AutoGrowConfig(1, 0, 4000, 0));
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    policy.onMiss();
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals("Every striped miss is aggregated", GrowthDecision.Action.GROW, policy.decide(1).action);
+    }
+
+    @Test
+    public void testEwmaPolicyGrowsAndShrinks() throws InterruptedException {
+        EwmaGrowthPolicy policy = new EwmaGrowthPolicy(1, 0.5, 0.3, 0.1, 2, 0);
+
+        // Window of 50% misses
+        policy.onHit(5);
+        for (int i = 0; i < 5; i++) {
+            policy.onMiss();
+        }
+        Thread.sleep(2);
+        Assert.assertEquals(GrowthDecision.Action.GROW, policy.decide(4).action);
+        Assert.assertEquals(0.5, policy.missRate(), 1e-9);
+
+        // Two clean windows bring the average to 0.25, then 0.125: hold
+        policy.onHit(10);
+        Thread.sleep(2);
+        Assert.assertEquals(GrowthDecision.Action.HOLD, policy.decide(5).action);
+        policy.onHit(10);
+        Thread.sleep(2);
+        Assert.assertEquals(GrowthDecision.Action.HOLD, policy.decide(5).action);
+
+        // Third clean window: 0.0625 is below the shrink threshold
+        policy.onHit(10);
+        Thread.sleep(2);
+        Assert.assertEquals(GrowthDecision.Action.SHRINK, policy.decide(5).action);
+        policy.onHit(10);
+        Thread.sleep(2);
+        Assert.assertEquals("Never below minStripes", GrowthDecision.Action.HOLD, policy.decide(2).action);
+    }
+
+    @Test
+    public void testTargetHitRatioGrowsInProportion() {
+        TargetHitRatioGrowthPolicy policy = new TargetHitRatioGrowthPolicy(0.99, 100, 12);
+        policy.onHit(49);
+        policy.onMiss();
+        Assert.assertEquals("Not enough samples", GrowthDecision.Action.HOLD, policy.decide(8).action);
+
+        for (int i = 0; i < 49; i++) {
+            policy.onMiss();
+        }
+        policy.onHit(1);
+        GrowthDecision decision = policy.decide(8); // 50% hits against 99%
+        Assert.assertEquals(GrowthDecision.Action.GROW, decision.action);
+        Assert.assertEquals(4, decision.stripes);
+
+        policy.onHit(100);
+        Assert.assertEquals("On target", GrowthDecision.Action.HOLD, policy.decide(12).action);
+
+        policy.onMiss();
+        policy.onHit(99);
+        Assert.assertEquals("Already at maxStripes", GrowthDecision.Action.HOLD, policy.decide(12).action);
+    }
+
+    @Test
+    public void testPoolAppliesPolicyDecisions() {
+        StripedObjectPool<Object> pool = new StripedObjectPool<>(Object::new, null, 4, 2);
+        pool.setGrowthExecutor(StripedObjectPool.INLINE_GROWTH); // Count decisions synchronously
+        GrowthDecision[] next = {GrowthDecision.grow(2)};
+        int[] signals = new int[4];
+        pool.enableAutoGrow(new GrowthPolicy() {
+            @Override
+            public void onHit(int count) {
+                signals[0] += count;
+            }
+
+            @Override
+            public void onMiss() {
+                signals[1]++;
+            }
+
+            @Override
+            public void onRelease(int count) {
+                signals[2] += count;
+            }
+
+            @Override
+            public void onDrop(int count) {
+                signals[3] += count;
+            }
+
+            @Override
+            public GrowthDecision decide(int stripeCount) {
+                return next[0];
+            }
+        });
+
+        Object[] held = new Object[8];
+        for (int i = 0; i < held.length; i++) {
+            held[i] = pool.acquire();
+        }
+        pool.acquire(); // Miss, grows by 2
+        Assert.assertEquals(6, pool.stripeCount());
+        Assert.assertEquals(8, signals[0]);
+        Assert.assertEquals(1, signals[1]);
+
+        pool.release(held[0]);
+        Assert.assertEquals(1, signals[2]);
+
+        next[0] = GrowthDecision.shrink(3);
+        pool.acquireBatch(new Object[20], 20); // Shortfall counts as a miss, shrinks by 3
+        Assert.assertEquals(3, pool.stripeCount());
+    }
+}
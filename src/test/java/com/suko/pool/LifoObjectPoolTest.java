@@ -0,0 +1,142 @@
+package com.suko.pool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests for the tagged-stack LifoObjectPool.
+ */
+public class LifoObjectPoolTest {
+
+    private static final int CONCURRENCY_LEVEL = 16;
+    private static final int OPERATIONS_PER_THREAD = 20_000;
+
+    @Test
+    public void testMostRecentlyReleasedFirst() {
+        LifoObjectPool<Object> pool = new LifoObjectPool<>(Object::new, null, 4);
+        Object a = pool.tryAcquire();
+        Object b = pool.tryAcquire();
+
+        Assert.assertTrue(pool.release(a));
+        Assert.assertTrue(pool.release(b));
+        Assert.assertSame("Last released should be reused first", b, pool.tryAcquire());
+        Assert.assertSame(a, pool.tryAcquire());
+    }
+
+    @Test
+    public void testEmptyAndFull() {
+        LifoObjectPool<Object> pool = new LifoObjectPool<>(Object::new, null, 3);
+        Assert.assertEquals(4, pool.capacity());
+        Assert.assertFalse("Full pool should drop releases", pool.release(new Object()));
+
+        Object[] all = new Object[4];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = pool.tryAcquire();
+            Assert.assertNotNull(all[i]);
+        }
+        Assert.assertNull(pool.tryAcquire());
+        Assert.assertNotNull("acquire should allocate on miss", pool.acquire());
+    }
+
+    @Test
+    public void testBatchKeepsLifoOrder() {
+        LifoObjectPool<Object> pool = new LifoObjectPool<>(Object::new, null, 8);
+        Object[] batch = new Object[8];
+        Assert.assertEquals(8, pool.acquireBatch(batch, 8));
+        Assert.assertEquals(0, pool.acquireBatch(new Object[1], 1));
+
+        Assert.assertEquals(3, pool.releaseBatch(batch, 3));
+        Object top = pool.tryAcquire();
+        Assert.assertTrue("Top should be one of the released batch",
+            top == batch[0] || top == batch[1] || top == batch[2]);
+        Assert.assertTrue(pool.release(top));
+
+        Assert.assertEquals("Only the free slots should be filled", 5, pool.releaseBatch(
+            Arrays.copyOfRange(batch, 3, 8), 5));
+        Assert.assertFalse(pool.release(new Object()));
+    }
+
+    @Test
+    public void testLazyPoolFillsFromReleases() {
+        AtomicInteger created = new AtomicInteger();
+        LifoObjectPool<Object> pool = new LifoObjectPool<>(() -> {
+            created.incrementAndGet();
+            return new Object();
+        }, null, 4, Prefill.LAZY);
+
+        Assert.assertEquals(0, created.get());
+        Assert.assertNull(pool.tryAcquire());
+        Object obj = new Object();
+        Assert.assertTrue(pool.release(obj));
+        Assert.assertSame(obj, pool.tryAcquire());
+
+        pool.fill();
+        Assert.assertEquals(4, created.get());
+        Assert.assertFalse(pool.release(new Object()));
+    }
+
+    @Test
+    public void testNoLostOrSharedObjectsUnderContention() throws InterruptedException {
+        int size = 8;
+        AtomicInteger created = new AtomicInteger();
+        LifoObjectPool<int[]> pool = new LifoObjectPool<>(() -> {
+            created.incrementAndGet();
+            return new int[1];
+        }, null, size);
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY_LEVEL);
+        CountDownLatch doneLatch = new CountDownLatch(CONCURRENCY_LEVEL);
+        AtomicLong violations = new AtomicLong();
+
+        for (int i = 0; i < CONCURRENCY_LEVEL; i++) {
+            int thread = i;
+            executor.submit(() -> {
+                int[][] batch = new int[4][];
+                for (int j = 0; j < OPERATIONS_PER_THREAD; j++) {
+                    if ((thread + j) % 3 == 0) {
+                        int n = pool.acquireBatch(batch, 1 + j % 4);
+                        if (pool.releaseBatch(batch, n) != n) {
+                            violations.incrementAndGet();
+                        }
+                        continue;
+                    }
+                    int[] obj = pool.tryAcquire();
+                    if (obj == null) {
+                        continue;
+                    }
+                    if (++obj[0] != 1) {
+                        violations.incrementAndGet(); // Shared with another holder
+                    }
+                    obj[0]--;
+                    if (!pool.release(obj)) {
+                        violations.incrementAndGet(); // Pool can never be over-full
+                    }
+                }
+                doneLatch.countDown();
+            });
+        }
+
+        Assert.assertTrue(doneLatch.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        Assert.assertEquals(0, violations.get());
+        Assert.assertEquals(size, created.get());
+        Set<int[]> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        int[] obj;
+        while ((obj = pool.tryAcquire()) != null) {
+            Assert.assertTrue("Object returned twice", seen.add(obj));
+        }
+        Assert.assertEquals(size, seen.size());
+    }
+}
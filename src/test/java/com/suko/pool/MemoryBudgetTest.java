@@ -0,0 +1,94 @@
+package com.suko.pool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for memory-budget limits on auto-growing.
+ */
+public class MemoryBudgetTest {
+
+    private static final class Buffer {
+        int length;
+        byte[] data = new byte[100];
+    }
+
+    @Test
+    public void testEstimateBytes() {
+        Assert.assertEquals(16, MemoryBudget.estimateBytes(new Object()));
+        Assert.assertEquals(16 + 10 * 8, MemoryBudget.estimateBytes(new long[10]));
+        // 12 header + 4 int + 4 reference = 24, plus 16 + 100 = 120 for the array
+        Assert.assertEquals(24 + 120, MemoryBudget.estimateBytes(new Buffer()));
+
+        Object[] shared = new Object[2];
+        shared[0] = shared[1] = new Object();
+        Assert.assertEquals("Shared objects count once", 24 + 16, MemoryBudget.estimateBytes(shared));
+    }
+
+    private static final class Node {
+        Node next;
+    }
+
+    private static final class Codec {
+        long[] table = new long[1000];
+    }
+
+    private static final Codec SHARED_CODEC = new Codec();
+
+    private static final class Message {
+        Codec codec = SHARED_CODEC;
+        byte[] body = new byte[16];
+    }
+
+    @Test
+    public void testEstimateBytesCountsOwnedObjects() {
+        Node head = new Node();
+        Node node = head;
+        for (int i = 0; i < 10; i++) {
+            node.next = new Node();
+            node = node.next;
+        }
+        Assert.assertEquals("Only the first references are followed",
+            (MemoryBudget.OWNED_DEPTH + 1) * 16, MemoryBudget.estimateBytes(head));
+
+        // 12 header + two 4-byte references = 24 (rounded), plus 16 + 16 = 32 for the body
+        Assert.assertEquals("Shared codec is left out", 24 + 32, MemoryBudget.estimateOwnedBytes(Message::new));
+        Assert.assertTrue(MemoryBudget.estimateBytes(new Message()) > 8000);
+    }
+
+    @Test
+    public void testGrowthStopsAtByteBudget() {
+        StripedObjectPool<Object> pool = new StripedObjectPool<>(Object::new, null, 1, 4);
+        pool.setMemoryBudget(new MemoryBudget(100, 1000, 100, 0, () -> 0));
+        pool.enableAutoGrow(new AutoGrowConfig(2, 0, 1, 0));
+        pool.setGrowthExecutor(StripedObjectPool.INLINE_GROWTH); // Count decisions synchronously
+
+        for (int i = 0; i < 50; i++) {
+            pool.acquire();
+        }
+        Assert.assertEquals("10 objects fit in 1000 bytes: two stripes of 4", 2, pool.stripeCount());
+    }
+
+    @Test
+    public void testHeapPressureVetoesAndSheds() {
+        int[] heap = {90};
+        StripedObjectPool<Object> pool = new StripedObjectPool<>(Object::new, null, 4, 2);
+        pool.setMemoryBudget(new MemoryBudget(16, 0, 80, 95, () -> heap[0]));
+        pool.enableAutoGrow(new AutoGrowConfig(1, 0, 1, 0));
+        pool.setGrowthExecutor(StripedObjectPool.INLINE_GROWTH); // Count decisions synchronously
+
+        for (int i = 0; i < 20; i++) {
+            pool.acquire();
+        }
+        Assert.assertEquals("No growth above the heap threshold", 4, pool.stripeCount());
+
+        heap[0] = 97;
+        pool.acquire();
+        pool.acquire();
+        Assert.assertEquals("Each evaluation sheds a stripe", 2, pool.stripeCount());
+
+        heap[0] = 50;
+        pool.acquire();
+        Assert.assertEquals(3, pool.stripeCount());
+    }
+}
@@ -0,0 +1,537 @@
+package com.suko.pool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Tests for the sequence-stamped ObjectPool ring.
+ */
+public class ObjectPoolTest {
+
+    private static final int CONCURRENCY_LEVEL = 16;
+    private static final int OPERATIONS_PER_THREAD = 20_000;
+
+    @Test
+    public void testPrePopulatedAndDrainable() {
+        ObjectPool<Object> pool = new ObjectPool<>(Object::new, null, 8);
+        Assert.assertEquals(8, pool.capacity());
+
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < 8; i++) {
+            Object obj = pool.tryAcquire();
+            Assert.assertNotNull("Pre-populated slot should not be empty", obj);
+            Assert.assertTrue("Each slot should hold a distinct object", seen.add(obj));
+        }
+        Assert.assertNull("Drained pool should be empty", pool.tryAcquire());
+    }
+
+    @Test
+    public void testReleaseWhenFull() {
+        ObjectPool<Object> pool = new ObjectPool<>(Object::new, null, 4);
+        Assert.assertFalse("Full pool should drop releases", pool.release(new Object()));
+
+        Object obj = pool.tryAcquire();
+        Assert.assertTrue(pool.release(obj));
+        Assert.assertFalse(pool.release(new Object()));
+    }
+
+    @Test
+    public void testFifoOrderAcrossWrap() {
+        ObjectPool<Object> pool = new ObjectPool<>(Object::new, null, 4);
+        for (int lap = 0; lap < 3; lap++) {
+            Object[] taken = new Object[4];
+            for (int i = 0; i < 4; i++) {
+                taken[i] = pool.tryAcquire();
+            }
+            for (int i = 0; i < 4; i++) {
+                Assert.assertTrue(pool.release(taken[i]));
+            }
+            for (int i = 0; i < 4; i++) {
+                Object obj = pool.tryAcquire();
+                Assert.assertSame("Objects should come back in release order", taken[i], obj);
+                taken[i] = obj;
+            }
+            for (int i = 0; i < 4; i++) {
+                Assert.assertTrue(pool.release(taken[i]));
+            }
+        }
+        Assert.assertEquals(pool.getTail() - pool.capacity(), pool.getHead());
+    }
+
+    @Test
+    public void testResetActionOnRelease() {
+        AtomicInteger resets = new AtomicInteger();
+        ObjectPool<Object> pool = new ObjectPool<>(Object::new, obj -> resets.incrementAndGet(), 2);
+        Object obj = pool.acquire();
+        pool.release(obj);
+        Assert.assertEquals(1, resets.get());
+    }
+
+    @Test
+    public void testNoTornSlotsUnderContention() throws InterruptedException {
+        // Every object is held by at most one thread at a time and the pool never loses one:
+        // with no allocation, a null from tryAcquire is only legal when all objects are out.
+        int size = 8;
+        AtomicInteger created = new AtomicInteger();
+        ObjectPool<int[]> pool = new ObjectPool<>(() -> {
+            created.incrementAndGet();
+            return new int[1];
+        }, null, size);
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY_LEVEL);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch doneLatch = new CountDownLatch(CONCURRENCY_LEVEL);
+        AtomicLong violations = new AtomicLong();
+        AtomicLong acquired = new AtomicLong();
+
+        for (int i = 0; i < CONCURRENCY_LEVEL; i++) {
+            executor.submit(() -> {
+                try {
+                    startLatch.await();
+                    for (int j = 0; j < OPERATIONS_PER_THREAD; j++) {
+                        int[] obj = pool.tryAcquire();
+                        if (obj == null) {
+                            continue;
+                        }
+                        acquired.incrementAndGet();
+                        if (++obj[0] != 1) {
+                            violations.incrementAndGet(); // Shared with another holder
+                        }
+                        obj[0]--;
+                        if (!pool.release(obj)) {
+                            violations.incrementAndGet(); // Pool can never be over-full
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    doneLatch.countDown();
+                }
+            });
+        }
+
+        startLatch.countDown();
+        Assert.assertTrue(doneLatch.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        Assert.assertEquals("No object may be shared or dropped", 0, violations.get());
+        Assert.assertEquals("Pool should never allocate", size, created.get());
+        Assert.assertTrue(acquired.get() > 0);
+
+        Set<int[]> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        int[] obj;
+        while ((obj = pool.tryAcquire()) != null) {
+            Assert.assertTrue("Object returned twice", seen.add(obj));
+        }
+        Assert.assertEquals("All objects should be back in the pool", size, seen.size());
+    }
+
+    @Test
+    public void testBatchAcquireRelease() {
+        ObjectPool<Object> pool = new ObjectPool<>(Object::new, null, 8);
+        Object[] batch = new Object[16];
+
+        Assert.assertEquals(5, pool.acquireBatch(batch, 5));
+        Assert.assertEquals(5, pool.getHead());
+        Assert.assertEquals("Only the remaining objects should be handed out", 3, pool.acquireBatch(batch, 16));
+        Assert.assertEquals(0, pool.acquireBatch(batch, 16));
+
+        Object[] extra = new Object[10];
+        System.arraycopy(batch, 0, extra, 0, 3);
+        for (int i = 3; i < extra.length; i++) {
+            extra[i] = new Object();
+        }
+        Assert.assertEquals(10 - 2, pool.releaseBatch(extra, 10));
+        Assert.assertEquals("Full pool should accept nothing", 0, pool.releaseBatch(extra, 1));
+        Assert.assertEquals(8, pool.getTail() - pool.getHead());
+    }
+
+    @Test
+    public void testConcurrentBatches() throws InterruptedException {
+        int size = 64;
+        AtomicInteger created = new AtomicInteger();
+        ObjectPool<Object> pool = new ObjectPool<>(() -> {
+            created.incrementAndGet();
+            return new Object();
+        }, null, size);
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY_LEVEL);
+        CountDownLatch doneLatch = new CountDownLatch(CONCURRENCY_LEVEL);
+        AtomicLong dropped = new AtomicLong();
+
+        for (int i = 0; i < CONCURRENCY_LEVEL; i++) {
+            executor.submit(() -> {
+                Object[] batch = new Object[16];
+                for (int j = 0; j < OPERATIONS_PER_THREAD / 16; j++) {
+                    int n = pool.acquireBatch(batch, 1 + j % 16);
+                    if (pool.releaseBatch(batch, n) != n) {
+                        dropped.incrementAndGet();
+                    }
+                }
+                doneLatch.countDown();
+            });
+        }
+
+        Assert.assertTrue(doneLatch.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        Assert.assertEquals("Batches that were taken must always fit back", 0, dropped.get());
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Object obj;
+        while ((obj = pool.tryAcquire()) != null) {
+            Assert.assertTrue("Object returned twice", seen.add(obj));
+        }
+        Assert.assertEquals(size, seen.size());
+        Assert.assertEquals(size, created.get());
+    }
+
+    @Test
+    public void testWarmUpServesWaiters() throws Exception {
+        ObjectPool<Object> pool = new ObjectPool<>(Object::new, null, 4, Prefill.LAZY);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> waiter = executor.submit(() -> pool.acquire(10, TimeUnit.SECONDS));
+            while (!pool.waiters.hasWaiters()) {
+                Thread.sleep(1);
+            }
+            pool.warmUp(executor).get(10, TimeUnit.SECONDS);
+            Assert.assertNotNull("Warm-up should wake the waiter", waiter.get(1, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testLazyPoolStartsEmpty() {
+        AtomicInteger created = new AtomicInteger();
+        ObjectPool<Object> pool = new ObjectPool<>(() -> {
+            created.incrementAndGet();
+            return new Object();
+        }, null, 1024, Prefill.LAZY);
+
+        Assert.assertEquals("Lazy construction should not call the factory", 0, created.get());
+        Assert.assertNull(pool.tryAcquire());
+
+        Object obj = pool.acquire();
+        Assert.assertEquals("Miss should allocate on demand", 1, created.get());
+        Assert.assertTrue("Release should fill the lazy pool", pool.release(obj));
+        Assert.assertSame(obj, pool.tryAcquire());
+    }
+
+    @Test
+    public void testWarmUpFillsWhileInUse() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        ObjectPool<Object> pool = new ObjectPool<>(() -> {
+            created.incrementAndGet();
+            return new Object();
+        }, null, 256, Prefill.LAZY);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CompletableFuture<Void> warmUp = pool.warmUp(executor);
+            // The pool is usable while the warm-up is still running
+            for (int i = 0; i < 100; i++) {
+                pool.release(pool.acquire());
+            }
+            warmUp.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+
+        Assert.assertEquals("Warm-up should leave the pool full", pool.capacity(), pool.getTail() - pool.getHead());
+        Assert.assertTrue("Warm-up should create at most one pool's worth beyond the misses",
+            created.get() <= pool.capacity() + 100);
+        Assert.assertFalse(pool.release(new Object()));
+    }
+
+    @Test
+    public void testTimedAcquireTimesOutWithoutAllocating() throws InterruptedException {
+        AtomicInteger created = new AtomicInteger();
+        ObjectPool<Object> pool = new ObjectPool<>(() -> {
+            created.incrementAndGet();
+            return new Object();
+        }, null, 2, Prefill.LAZY);
+
+        long start = System.nanoTime();
+        Assert.assertNull(pool.acquire(50, TimeUnit.MILLISECONDS));
+        Assert.assertTrue("Should wait for the timeout", System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        Assert.assertEquals("Timed acquire must never allocate", 0, created.get());
+    }
+
+    @Test
+    public void testReleaseHandsOffToWaitersInOrder() throws InterruptedException {
+        ObjectPool<Object> pool = new ObjectPool<>(Object::new, null, 2, Prefill.LAZY);
+        int waiters = 3;
+        Object[] received = new Object[waiters];
+        CountDownLatch doneLatch = new CountDownLatch(waiters);
+        Thread[] threads = new Thread[waiters];
+
+        for (int i = 0; i < waiters; i++) {
+            int slot = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    received[slot] = pool.acquire(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    doneLatch.countDown();
+                }
+            });
+            threads[i].start();
+            // Let each waiter park before the next one arrives
+            while (threads[i].getState() != Thread.State.TIMED_WAITING) {
+                Thread.sleep(1);
+            }
+        }
+
+        Object[] released = new Object[waiters];
+        for (int i = 0; i < waiters; i++) {
+            released[i] = new Object();
+            Assert.assertTrue(pool.release(released[i]));
+        }
+        Assert.assertTrue(doneLatch.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < waiters; i++) {
+            Assert.assertSame("Waiters should be served in arrival order", released[i], received[i]);
+        }
+        Assert.assertNull("Handed-off objects should bypass the ring", pool.tryAcquire());
+    }
+
+    @Test
+    public void testTimedAcquireUnderContention() throws InterruptedException {
+        int size = 4;
+        ObjectPool<Object> pool = new ObjectPool<>(Object::new, null, size);
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY_LEVEL);
+        CountDownLatch doneLatch = new CountDownLatch(CONCURRENCY_LEVEL);
+        AtomicLong timeouts = new AtomicLong();
+
+        for (int i = 0; i < CONCURRENCY_LEVEL; i++) {
+            executor.submit(() -> {
+                try {
+                    for (int j = 0; j < 500; j++) {
+                        Object obj = pool.acquire(5, TimeUnit.SECONDS);
+                        if (obj == null) {
+                            timeouts.incrementAndGet();
+                            continue;
+                        }
+                        Thread.yield();
+                        pool.release(obj);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    doneLatch.countDown();
+                }
+            });
+        }
+
+        Assert.assertTrue(doneLatch.await(60, TimeUnit.SECONDS));
+        executor.shutdown();
+        Assert.assertEquals("No waiter should miss a release", 0, timeouts.get());
+
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Object obj;
+        while ((obj = pool.tryAcquire()) != null) {
+            Assert.assertTrue("Object returned twice", seen.add(obj));
+        }
+        Assert.assertEquals(size, seen.size());
+    }
+
+    @Test
+    public void testMissPolicyReturnNullAndThrow() {
+        ObjectPool<Object> pool = new ObjectPool<>(Object::new, null, 2, Prefill.LAZY);
+        Assert.assertSame(MissPolicy.ALLOCATE, pool.missPolicy());
+
+        pool.setMissPolicy(MissPolicy.RETURN_NULL);
+        Assert.assertNull(pool.acquire());
+
+        pool.setMissPolicy(MissPolicy.THROW);
+        try {
+            pool.acquire();
+            Assert.fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+            // Pool exhausted
+        }
+
+        Object obj = new Object();
+        pool.release(obj);
+        Assert.assertSame("Pooled objects are still handed out", obj, pool.acquire());
+    }
+
+    @Test
+    public void testMissPolicyBlock() throws Exception {
+        ObjectPool<Object> pool = new ObjectPool<>(Object::new, null, 2, Prefill.LAZY);
+        pool.setMissPolicy(MissPolicy.block(20, TimeUnit.MILLISECONDS));
+        try {
+            pool.acquire();
+            Assert.fail("Expected IllegalStateException after the timeout");
+        } catch (IllegalStateException expected) {
+            // Nothing was released in time
+        }
+
+        pool.setMissPolicy(MissPolicy.block(10, TimeUnit.SECONDS));
+        Object obj = new Object();
+        CompletableFuture<Object> waiter = CompletableFuture.supplyAsync(pool::acquire);
+        Thread.sleep(50);
+        pool.release(obj);
+        Assert.assertSame(obj, waiter.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testWarmUpCreatesOnlyForEmptySlots() {
+        AtomicInteger created = new AtomicInteger();
+        Supplier<Object> factory = () -> {
+            created.incrementAndGet();
+            return new Object();
+        };
+        for (BoundedPool<Object> pool : Arrays.<BoundedPool<Object>>asList(
+                new ObjectPool<>(factory, null, 4, Prefill.LAZY),
+                new LifoObjectPool<>(factory, null, 4, Prefill.LAZY))) {
+            created.set(0);
+            for (int i = 0; i < 3; i++) {
+                pool.release(new Object());
+            }
+            pool.warmUp(Runnable::run).join();
+            Assert.assertEquals("Only the one empty slot needs an object", 1, created.get());
+            pool.warmUp(Runnable::run).join();
+            Assert.assertEquals("A full pool should not call the factory", 1, created.get());
+        }
+    }
+
+    @Test
+    public void testWaiterDropsSurplusWhenPoolIsFull() throws Exception {
+        Object polled = new Object();
+        Object handedOff = new Object();
+        Set<Object> dropped = Collections.newSetFromMap(new IdentityHashMap<>());
+        AtomicReference<Waiters<Object>> waiters = new AtomicReference<>();
+        // The re-poll after registering finds an object while a releaser hands over another,
+        // and releases have filled the pool by the time the surplus goes back
+        waiters.set(new Waiters<>(() -> {
+            Assert.assertTrue(waiters.get().handOff(handedOff));
+            return polled;
+        }, object -> false, dropped::add));
+
+        Assert.assertSame(polled, waiters.get().await(TimeUnit.SECONDS.toNanos(10)));
+        Assert.assertTrue("Surplus object should be dropped, not lost", dropped.contains(handedOff));
+        Assert.assertEquals(1, dropped.size());
+    }
+
+    @Test
+    public void testMissPolicyAllocateUpToLimit() {
+        AtomicInteger created = new AtomicInteger();
+        ObjectPool<Object> pool = new ObjectPool<>(() -> {
+            created.incrementAndGet();
+            return new Object();
+        }, null, 2);
+        pool.setMissPolicy(MissPolicy.allocateUpTo(1));
+
+        Object[] objects = {pool.acquire(), pool.acquire(), pool.acquire()};
+        Assert.assertEquals("Prefill plus one miss allocation", 3, created.get());
+        try {
+            pool.acquire();
+            Assert.fail("Expected IllegalStateException at the allocation limit");
+        } catch (IllegalStateException expected) {
+            // Limit reached
+        }
+
+        Assert.assertEquals(2, pool.releaseBatch(objects, 3));
+        Object extra = pool.acquire();
+        pool.acquire();
+        Assert.assertNotNull("A dropped object frees room under the limit", pool.acquire());
+        Assert.assertNotNull(extra);
+        Assert.assertEquals(4, created.get());
+    }
+
+    @Test
+    public void testSizeOneReleaseWhenFull() {
+        ObjectPool<Object> pool = new ObjectPool<>(Object::new, null, 1);
+        Assert.assertEquals("A ring needs two slots to tell full from empty", 2, pool.capacity());
+
+        Object extra = new Object();
+        Assert.assertFalse("Release into a full pool should be dropped", pool.release(extra));
+        Assert.assertEquals(1, pool.droppedCount());
+
+        Object first = pool.tryAcquire();
+        Object second = pool.tryAcquire();
+        Assert.assertNotNull(first);
+        Assert.assertNotNull(second);
+        Assert.assertNotSame("No pooled object should have been overwritten", first, second);
+        Assert.assertNotSame(extra, first);
+        Assert.assertNotSame(extra, second);
+        Assert.assertNull(pool.tryAcquire());
+    }
+
+    @Test
+    public void testDropHandler() {
+        ObjectPool<Object> pool = new ObjectPool<>(Object::new, null, 2);
+        ObjectPool<Object> overflow = new ObjectPool<>(Object::new, null, 4, Prefill.LAZY);
+        pool.setDropHandler(overflow::release);
+
+        Object extra = new Object();
+        Assert.assertFalse(pool.release(extra));
+        Assert.assertEquals(1, pool.droppedCount());
+        Assert.assertSame("Dropped object should reach the overflow pool", extra, overflow.tryAcquire());
+
+        Object[] batch = {new Object(), new Object(), new Object()};
+        Assert.assertEquals(0, pool.releaseBatch(batch, 3));
+        Assert.assertEquals(4, pool.droppedCount());
+        Object[] forwarded = new Object[3];
+        Assert.assertEquals(3, overflow.acquireBatch(forwarded, 3));
+        Assert.assertSame(batch[0], forwarded[0]);
+        Assert.assertSame(batch[2], forwarded[2]);
+    }
+
+    @Test
+    public void testTrim() {
+        ObjectPool<Object> pool = new ObjectPool<>(Object::new, null, 8);
+        AtomicInteger trimmed = new AtomicInteger();
+        pool.setDropHandler(obj -> trimmed.incrementAndGet());
+
+        Assert.assertEquals(2, pool.trim(25));
+        Assert.assertEquals("Trimmed objects should reach the drop handler", 2, trimmed.get());
+        Assert.assertEquals(6, pool.occupancy());
+        Assert.assertEquals("Trimmed objects are not dropped releases", 0, pool.droppedCount());
+        Assert.assertEquals(6, pool.trim(100));
+        Assert.assertEquals(0, pool.trim(100));
+    }
+
+    @Test
+    public void testOccupancy() {
+        ObjectPool<Object> pool = new ObjectPool<>(Object::new, null, 8);
+        Assert.assertEquals(8, pool.occupancy());
+        Object a = pool.tryAcquire();
+        pool.tryAcquire();
+        Assert.assertEquals(6, pool.occupancy());
+        pool.release(a);
+        Assert.assertEquals(7, pool.occupancy());
+    }
+    
+    @Test
+    public void testSingleAttemptPollAndOffer() {
+        ObjectPool<Object> pool = new ObjectPool<>(Object::new, null, 2, Prefill.LAZY);
+        Assert.assertNull("Empty pool is reported as empty, not contended", pool.pollOnce());
+
+        Object a = new Object();
+        Object b = new Object();
+        Assert.assertEquals(BoundedPool.OFFER_STORED, pool.offerOnce(a));
+        Assert.assertEquals(BoundedPool.OFFER_STORED, pool.offerOnce(b));
+        Assert.assertEquals(BoundedPool.OFFER_FULL, pool.offerOnce(new Object()));
+
+        Assert.assertSame(a, pool.pollOnce());
+        Assert.assertSame(b, pool.pollOnce());
+        Assert.assertNull(pool.pollOnce());
+    }
+}
@@ -4,6 +4,22 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import javax.management.Notification;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+
 /**
  * Test to verify that the Pool interface works correctly with both ObjectPool and StripedObjectPool.
  */
@@ -98,6 +114,130 @@ public class PoolInterfaceTest {
         Pools.INSTANCE.disableAutoGrow(testType);
     }
     
+    @Test
+    public void testPoolsRegister() {
+        // Register a pool built with options the create methods do not expose
+        Class<TestObject> testType = TestObject.class;
+        Pools.INSTANCE.register(testType, new ObjectPool<>(TestObject::new, TestObject::reset, 4, Prefill.LAZY));
+        
+        TestObject obj = Pools.INSTANCE.acquire(testType);
+        Assert.assertNotNull("Lazy pool should allocate on miss", obj);
+        Assert.assertTrue("Object should be released into the registered pool", 
+            Pools.INSTANCE.release(testType, obj));
+    }
+    
+    @Test
+    public void testPoolsMissPolicy() {
+        Class<TestObject> testType = TestObject.class;
+        Pools.INSTANCE.create(testType, TestObject::new, TestObject::reset, 2, MissPolicy.RETURN_NULL);
+        
+        TestObject obj = Pools.INSTANCE.acquire(testType);
+        Assert.assertNotNull(obj);
+        Assert.assertNotNull(Pools.INSTANCE.acquire(testType));
+        Assert.assertNull("Empty pool should not allocate", Pools.INSTANCE.acquire(testType));
+        Assert.assertTrue(Pools.INSTANCE.release(testType, obj));
+        
+        Pools.INSTANCE.createStriped(testType, TestObject::new, TestObject::reset, 1, 2, MissPolicy.THROW);
+        Pools.INSTANCE.acquire(testType);
+        Pools.INSTANCE.acquire(testType);
+        try {
+            Pools.INSTANCE.acquire(testType);
+            Assert.fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+            // Pool exhausted
+        }
+    }
+    
+    @Test
+    public void testPoolsTrim() {
+        ObjectPool<StringBuilder> single = new ObjectPool<>(StringBuilder::new, null, 8);
+        StripedObjectPool<StringBuffer> striped = new StripedObjectPool<>(StringBuffer::new, null, 4, 2);
+        LifoObjectPool<BitSet> lifo = new LifoObjectPool<>(BitSet::new, null, 8);
+        MpscObjectPool<Date> ring = new MpscObjectPool<>(Date::new, null, 8);
+        Pools.INSTANCE.register(StringBuilder.class, single);
+        Pools.INSTANCE.register(StringBuffer.class, striped);
+        Pools.INSTANCE.register(BitSet.class, lifo);
+        Pools.INSTANCE.register(Date.class, ring);
+        try {
+            Pools.INSTANCE.trim(50);
+            Assert.assertEquals("Half the pooled objects should be trimmed", 4, single.occupancy());
+            Assert.assertEquals("LIFO pools should be trimmed too", 4, lifo.acquireBatch(new BitSet[8], 8));
+            Assert.assertEquals("Single-consumer rings should be left alone", 8, ring.occupancy());
+            Assert.assertEquals("Trimming should keep the stripes", 8, striped.totalCapacity());
+            int left = 0;
+            while (striped.tryAcquire() != null) {
+                left++;
+            }
+            Assert.assertEquals("Half of each stripe's objects should be trimmed", 4, left);
+        } finally {
+            Pools.INSTANCE.unregister(StringBuilder.class);
+            Pools.INSTANCE.unregister(StringBuffer.class);
+            Pools.INSTANCE.unregister(BitSet.class);
+            Pools.INSTANCE.unregister(Date.class);
+        }
+        Assert.assertFalse(Pools.INSTANCE.hasPool(StringBuilder.class));
+    }
+    
+    @Test
+    public void testGcTrimmingOnThresholdCrossing() throws Exception {
+        List<Integer> pressure = new ArrayList<>();
+        GcTrimmer trimmer = new GcTrimmer(75, pressure::add, Collections.singleton("Old Gen"));
+        
+        trimmer.handleNotification(gcNotification(74, 90), null);
+        Assert.assertTrue("Occupancy below the threshold should not trim", pressure.isEmpty());
+        trimmer.handleNotification(gcNotification(80, 0), null);
+        Assert.assertEquals("Eden should not count towards the old generation", Collections.singletonList(80), pressure);
+        trimmer.handleNotification(gcNotification(90, 0), null);
+        Assert.assertEquals("Staying above the threshold should not trim again", 1, pressure.size());
+        trimmer.handleNotification(gcNotification(50, 0), null);
+        trimmer.handleNotification(gcNotification(76, 0), null);
+        Assert.assertEquals("Crossing the threshold again should trim again", Arrays.asList(80, 76), pressure);
+        trimmer.handleNotification(new Notification("other", this, 0), null);
+        Assert.assertEquals(2, pressure.size());
+        
+        Pools.INSTANCE.enableGcTrimming(TrimConfig.withDefaults());
+        try {
+            Assert.assertTrue(Pools.INSTANCE.isGcTrimmingEnabled());
+        } finally {
+            Pools.INSTANCE.disableGcTrimming();
+        }
+        Assert.assertFalse(Pools.INSTANCE.isGcTrimmingEnabled());
+    }
+    
+    /**
+     * Builds a collection notification shaped like the JVM's, with memory usage after the
+     * collection for an "Old Gen" and an "Eden" pool, each with a maximum of 100 bytes.
+     */
+    private Notification gcNotification(long oldGenUsed, long edenUsed) throws OpenDataException {
+        String[] usageItems = {"init", "used", "committed", "max"};
+        OpenType<?>[] usageTypes = {SimpleType.LONG, SimpleType.LONG, SimpleType.LONG, SimpleType.LONG};
+        CompositeType usageType = new CompositeType("java.lang.management.MemoryUsage", "usage",
+            usageItems, usageItems, usageTypes);
+        CompositeType rowType = new CompositeType("entry", "entry", new String[] {"key", "value"},
+            new String[] {"key", "value"}, new OpenType<?>[] {SimpleType.STRING, usageType});
+        TabularDataSupport after = new TabularDataSupport(
+            new TabularType("usages", "usages", rowType, new String[] {"key"}));
+        String[] pools = {"Old Gen", "Eden"};
+        long[] used = {oldGenUsed, edenUsed};
+        for (int i = 0; i < pools.length; i++) {
+            CompositeData usage = new CompositeDataSupport(usageType, usageItems,
+                new Object[] {0L, used[i], 100L, 100L});
+            after.put(new CompositeDataSupport(rowType, new String[] {"key", "value"},
+                new Object[] {pools[i], usage}));
+        }
+        
+        CompositeType gcInfoType = new CompositeType("gcInfo", "gcInfo", new String[] {"memoryUsageAfterGc"},
+            new String[] {"memoryUsageAfterGc"}, new OpenType<?>[] {after.getTabularType()});
+        CompositeData gcInfo = new CompositeDataSupport(gcInfoType, new String[] {"memoryUsageAfterGc"},
+            new Object[] {after});
+        CompositeType infoType = new CompositeType("info", "info", new String[] {"gcName", "gcInfo"},
+            new String[] {"gcName", "gcInfo"}, new OpenType<?>[] {SimpleType.STRING, gcInfoType});
+        Notification notification = new Notification(GcTrimmer.GC_NOTIFICATION, this, 0);
+        notification.setUserData(new CompositeDataSupport(infoType, new String[] {"gcName", "gcInfo"},
+            new Object[] {"Test GC", gcInfo}));
+        return notification;
+    }
+    
     @Test
     public void testPooledWithStripedWrapper() {
         // Test that Pooled.get creates a striped wrapper pool by default
@@ -0,0 +1,219 @@
+package com.suko.pool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests for the SPSC and MPSC specialized ring pools.
+ */
+public class RingPoolTest {
+
+    private static final int TRANSFERS = 200_000;
+
+    @Test
+    public void testSpscSingleThreaded() {
+        SpscObjectPool<Object> pool = new SpscObjectPool<>(Object::new, null, 4);
+        Assert.assertEquals(4, pool.capacity());
+        Assert.assertFalse(pool.release(new Object()));
+
+        Object[] batch = new Object[8];
+        Assert.assertEquals(4, pool.acquireBatch(batch, 8));
+        Assert.assertNull(pool.tryAcquire());
+        Assert.assertEquals(3, pool.releaseBatch(batch, 3));
+        Assert.assertSame("Ring should be FIFO", batch[0], pool.tryAcquire());
+        Assert.assertTrue(pool.release(batch[3]));
+        Assert.assertTrue(pool.release(batch[0]));
+        Assert.assertFalse(pool.release(new Object()));
+    }
+
+    @Test
+    public void testMpscSingleThreaded() {
+        MpscObjectPool<Object> pool = new MpscObjectPool<>(Object::new, null, 4, Prefill.LAZY);
+        Assert.assertNull(pool.tryAcquire());
+
+        Object a = new Object();
+        Object b = new Object();
+        Assert.assertTrue(pool.release(a));
+        Assert.assertTrue(pool.release(b));
+        Assert.assertSame(a, pool.tryAcquire());
+        Assert.assertEquals(3, pool.releaseBatch(new Object[]{new Object(), new Object(), new Object(), new Object()}, 4));
+
+        Object[] batch = new Object[8];
+        Assert.assertEquals(4, pool.acquireBatch(batch, 8));
+        Assert.assertSame(b, batch[0]);
+        Assert.assertEquals(0, pool.acquireBatch(batch, 8));
+    }
+
+    @Test
+    public void testSpscHandoff() throws InterruptedException {
+        // One thread acquires, another releases what it is handed: no object may be lost or duplicated
+        int size = 16;
+        SpscObjectPool<Object> pool = new SpscObjectPool<>(Object::new, null, size);
+        ConcurrentLinkedQueue<Object> inFlight = new ConcurrentLinkedQueue<>();
+        AtomicLong violations = new AtomicLong();
+        AtomicBoolean done = new AtomicBoolean();
+
+        Thread acquirer = new Thread(() -> {
+            for (int i = 0; i < TRANSFERS; ) {
+                Object obj = pool.tryAcquire();
+                if (obj != null) {
+                    inFlight.add(obj);
+                    i++;
+                } else {
+                    Thread.yield();
+                }
+            }
+            done.set(true);
+        });
+        Thread releaser = new Thread(() -> {
+            while (!done.get() || !inFlight.isEmpty()) {
+                Object obj = inFlight.poll();
+                if (obj == null) {
+                    Thread.yield();
+                } else if (!pool.release(obj)) {
+                    violations.incrementAndGet();
+                }
+            }
+        });
+        acquirer.start();
+        releaser.start();
+        acquirer.join(TimeUnit.SECONDS.toMillis(30));
+        releaser.join(TimeUnit.SECONDS.toMillis(30));
+
+        Assert.assertEquals(0, violations.get());
+        assertExactly(pool, size);
+    }
+
+    @Test
+    public void testMpscManyReleasers() throws InterruptedException {
+        int size = 16;
+        int releasers = 4;
+        MpscObjectPool<Object> pool = new MpscObjectPool<>(Object::new, null, size);
+        @SuppressWarnings("unchecked")
+        ConcurrentLinkedQueue<Object>[] inFlight = new ConcurrentLinkedQueue[releasers];
+        for (int i = 0; i < releasers; i++) {
+            inFlight[i] = new ConcurrentLinkedQueue<>();
+        }
+        AtomicLong violations = new AtomicLong();
+        AtomicBoolean done = new AtomicBoolean();
+        CountDownLatch releasersDone = new CountDownLatch(releasers);
+
+        Thread acquirer = new Thread(() -> {
+            Object[] batch = new Object[4];
+            for (int i = 0; i < TRANSFERS; ) {
+                int n;
+                if (i % 2 == 0) {
+                    n = pool.acquireBatch(batch, 4);
+                } else {
+                    batch[0] = pool.tryAcquire();
+                    n = batch[0] != null ? 1 : 0;
+                }
+                if (n == 0) {
+                    Thread.yield();
+                }
+                for (int j = 0; j < n; j++) {
+                    inFlight[(i + j) % releasers].add(batch[j]);
+                }
+                i += n;
+            }
+            done.set(true);
+        });
+        acquirer.start();
+        for (int r = 0; r < releasers; r++) {
+            ConcurrentLinkedQueue<Object> queue = inFlight[r];
+            new Thread(() -> {
+                while (!done.get() || !queue.isEmpty()) {
+                    Object obj = queue.poll();
+                    if (obj == null) {
+                        Thread.yield();
+                    } else if (!pool.release(obj)) {
+                        violations.incrementAndGet();
+                    }
+                }
+                releasersDone.countDown();
+            }).start();
+        }
+        acquirer.join(TimeUnit.SECONDS.toMillis(30));
+        Assert.assertTrue(releasersDone.await(30, TimeUnit.SECONDS));
+
+        Assert.assertEquals(0, violations.get());
+        assertExactly(pool, size);
+    }
+
+    @Test
+    public void testRingModesAsStripes() {
+        StripedObjectPool<Object> spsc = new StripedObjectPool<>(Object::new, null, 2, 4, PoolMode.SPSC);
+        StripedObjectPool<Object> mpsc = new StripedObjectPool<>(Object::new, null, 2, 4, PoolMode.MPSC);
+        for (StripedObjectPool<Object> pool : Arrays.asList(spsc, mpsc)) {
+            Object obj = pool.acquire();
+            Assert.assertNotNull(obj);
+            Assert.assertTrue(pool.release(obj));
+        }
+    }
+
+    @Test
+    public void testRingStripesRejectWaiting() throws InterruptedException {
+        for (PoolMode mode : Arrays.asList(PoolMode.SPSC, PoolMode.MPSC)) {
+            StripedObjectPool<Object> pool = new StripedObjectPool<>(Object::new, null, 2, 4, mode);
+            try {
+                pool.acquire(1, TimeUnit.MILLISECONDS);
+                Assert.fail("Timed acquire should be rejected for " + mode);
+            } catch (IllegalStateException expected) {
+                // The releasing thread would become a second consumer
+            }
+            try {
+                pool.setMissPolicy(MissPolicy.block(1, TimeUnit.MILLISECONDS));
+                Assert.fail("Blocking miss policy should be rejected for " + mode);
+            } catch (IllegalStateException expected) {
+                Assert.assertSame(MissPolicy.ALLOCATE, pool.missPolicy());
+            }
+        }
+    }
+
+    @Test
+    public void testNullReleaseIsRejected() {
+        for (RingPool<Object> pool : Arrays.<RingPool<Object>>asList(
+                new SpscObjectPool<>(Object::new, null, 4, Prefill.LAZY),
+                new MpscObjectPool<>(Object::new, null, 4, Prefill.LAZY))) {
+            Assert.assertFalse(pool.release(null));
+            Object obj = new Object();
+            try {
+                pool.releaseBatch(new Object[] {obj, null}, 2);
+                Assert.fail("Batch with null should be rejected");
+            } catch (IllegalArgumentException expected) {
+                // Nothing was stored
+            }
+            Assert.assertNull("Null must not be stored as a pending slot", pool.tryAcquire());
+            Assert.assertEquals(1, pool.releaseBatchFrom(new Object[] {obj, null}, 0, 2));
+            Assert.assertSame(obj, pool.tryAcquire());
+            Assert.assertNull(pool.tryAcquire());
+        }
+        StripedObjectPool<Object> striped = new StripedObjectPool<>(Object::new, null, 2, 4,
+                PoolMode.SPSC, Prefill.LAZY);
+        try {
+            striped.releaseBatch(new Object[] {new Object(), null}, 2);
+            Assert.fail("Batch with null should be rejected");
+        } catch (IllegalArgumentException expected) {
+            Assert.assertNull(striped.tryAcquire());
+        }
+    }
+
+    private static void assertExactly(Pool<Object> pool, int size) {
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Object obj;
+        while ((obj = pool.tryAcquire()) != null) {
+            Assert.assertTrue("Object returned twice", seen.add(obj));
+        }
+        Assert.assertEquals("All objects should be back in the pool", size, seen.size());
+    }
+}
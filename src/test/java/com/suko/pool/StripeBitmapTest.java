@@ -0,0 +1,48 @@
+package com.suko.pool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for the stripe occupancy bitmap.
+ */
+public class StripeBitmapTest {
+
+    @Test
+    public void testStartsWithEveryBitSet() {
+        StripeBitmap bits = new StripeBitmap(70);
+        for (int i = 0; i < 70; i++) {
+            Assert.assertTrue(bits.get(i));
+        }
+        Assert.assertEquals(69, bits.nextSetBit(69));
+    }
+
+    @Test
+    public void testNextSetBitWrapsAround() {
+        StripeBitmap bits = new StripeBitmap(130);
+        for (int i = 0; i < 130; i++) {
+            bits.clear(i);
+        }
+        Assert.assertEquals(-1, bits.nextSetBit(0));
+
+        bits.set(3);
+        bits.set(100);
+        Assert.assertEquals(3, bits.nextSetBit(0));
+        Assert.assertEquals(100, bits.nextSetBit(4));
+        Assert.assertEquals("Should wrap past the last word", 3, bits.nextSetBit(101));
+
+        bits.clear(100);
+        Assert.assertEquals("Should wrap back into the starting word", 3, bits.nextSetBit(10));
+        bits.clear(3);
+        Assert.assertEquals(-1, bits.nextSetBit(10));
+    }
+
+    @Test
+    public void testBitsBeyondSizeAreNeverSet() {
+        StripeBitmap bits = new StripeBitmap(5);
+        for (int i = 0; i < 5; i++) {
+            bits.clear(i);
+        }
+        Assert.assertEquals(-1, bits.nextSetBit(2));
+    }
+}
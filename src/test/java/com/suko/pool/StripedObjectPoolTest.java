@@ -4,7 +4,11 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.Assert;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
@@ -204,6 +208,613 @@ public class StripedObjectPoolTest {
         }
     }
     
+    @Test
+    public void testBatchAcquireRelease() {
+        TestObject[] batch = new TestObject[pool.totalCapacity() + 4];
+        
+        // Fills from more than one stripe when the hinted stripe runs dry
+        int acquired = pool.acquireBatch(batch, STRIPE_SIZE + 1);
+        Assert.assertEquals(STRIPE_SIZE + 1, acquired);
+        for (int i = 0; i < acquired; i++) {
+            Assert.assertNotNull(batch[i]);
+        }
+        Assert.assertEquals("Batch acquire should not allocate", INITIAL_STRIPES * STRIPE_SIZE, createdCount.get());
+        
+        int resetsBefore = resetCount.get();
+        Assert.assertEquals(acquired, pool.releaseBatch(batch, acquired));
+        Assert.assertEquals("Each object should be reset exactly once", resetsBefore + acquired, resetCount.get());
+        
+        Assert.assertEquals(pool.totalCapacity(), pool.acquireBatch(batch, batch.length));
+        Assert.assertNull(pool.tryAcquire());
+    }
+    
+    @Test
+    public void testBatchAcquireScansPastProbedStripes() {
+        StripedObjectPool<TestObject> wide = new StripedObjectPool<>(TestObject::new, null, 8, 4);
+        wide.enableAutoGrow(new AutoGrowConfig(1, 0, 1, 0));
+        wide.setGrowthExecutor(StripedObjectPool.INLINE_GROWTH); // Count decisions synchronously
+        TestObject[] batch = new TestObject[wide.totalCapacity()];
+        
+        Assert.assertEquals("A batch should be completed from stripes beyond the probe limit",
+            batch.length, wide.acquireBatch(batch, batch.length));
+        Assert.assertEquals("A complete batch is not a miss", 8, wide.stripeCount());
+        
+        Assert.assertEquals(0, wide.acquireBatch(batch, 1));
+        Assert.assertEquals("A batch from an empty pool is a miss", 9, wide.stripeCount());
+    }
+    
+    @Test
+    public void testLifoStripes() {
+        StripedObjectPool<TestObject> lifoPool = new StripedObjectPool<>(
+            TestObject::new, TestObject::reset, 1, 4, PoolMode.LIFO);
+        Assert.assertEquals(PoolMode.LIFO, lifoPool.mode());
+        
+        TestObject a = lifoPool.acquire();
+        TestObject b = lifoPool.acquire();
+        Assert.assertTrue(lifoPool.release(a));
+        Assert.assertTrue(lifoPool.release(b));
+        Assert.assertSame("Most recently released object should be reused first", b, lifoPool.acquire());
+        
+        lifoPool.addStripes(1);
+        Assert.assertEquals(2, lifoPool.stripeCount());
+        Assert.assertEquals(8, lifoPool.totalCapacity());
+    }
+    
+    @Test
+    public void testLazyStripesAndWarmUp() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        StripedObjectPool<TestObject> lazyPool = new StripedObjectPool<>(() -> {
+            created.incrementAndGet();
+            return new TestObject();
+        }, TestObject::reset, 4, 1024, PoolMode.FIFO, Prefill.LAZY);
+        
+        lazyPool.addStripes(4);
+        Assert.assertEquals("Lazy stripes should not call the factory", 0, created.get());
+        Assert.assertNull(lazyPool.tryAcquire());
+        
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            lazyPool.warmUp(executor).get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals("Warm-up should fill every stripe", lazyPool.totalCapacity(), created.get());
+        Assert.assertNotNull(lazyPool.tryAcquire());
+    }
+    
+    @Test
+    public void testWarmUpAndAddStripesServeWaiters() throws Exception {
+        StripedObjectPool<TestObject> lazyPool = new StripedObjectPool<>(TestObject::new, null, 2, 4,
+            PoolMode.FIFO, Prefill.LAZY);
+        StripedObjectPool<TestObject> eagerPool = new StripedObjectPool<>(TestObject::new, null, 1, 4);
+        eagerPool.setMissPolicy(MissPolicy.block(10, TimeUnit.SECONDS));
+        TestObject[] all = new TestObject[eagerPool.totalCapacity()];
+        Assert.assertEquals(all.length, eagerPool.acquireBatch(all, all.length));
+        
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<TestObject> lazyWaiter = executor.submit(() -> lazyPool.acquire(10, TimeUnit.SECONDS));
+            Future<TestObject> blockedMiss = executor.submit(() -> eagerPool.acquire());
+            while (!lazyPool.waiters.hasWaiters() || !eagerPool.waiters.hasWaiters()) {
+                Thread.sleep(1);
+            }
+            
+            lazyPool.warmUp(executor).get(10, TimeUnit.SECONDS);
+            Assert.assertNotNull("Warm-up should wake the waiter", lazyWaiter.get(1, TimeUnit.SECONDS));
+            eagerPool.addStripes(1);
+            Assert.assertNotNull("A prefilled stripe should wake the waiter", blockedMiss.get(1, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    @Test
+    public void testTimedAcquire() throws Exception {
+        TestObject[] all = new TestObject[pool.totalCapacity()];
+        Assert.assertEquals(all.length, pool.acquireBatch(all, all.length));
+        int created = createdCount.get();
+        
+        Assert.assertNull(pool.acquire(20, TimeUnit.MILLISECONDS));
+        
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<TestObject> waiter = executor.submit(() -> pool.acquire(10, TimeUnit.SECONDS));
+            Thread.sleep(50);
+            Assert.assertTrue(pool.release(all[0]));
+            Assert.assertSame("Release should wake the waiter", all[0], waiter.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals("Timed acquire must never allocate", created, createdCount.get());
+    }
+    
+    @Test
+    public void testMissPolicy() {
+        TestObject[] all = new TestObject[pool.totalCapacity()];
+        Assert.assertEquals(all.length, pool.acquireBatch(all, all.length));
+        int created = createdCount.get();
+        
+        pool.setMissPolicy(MissPolicy.RETURN_NULL);
+        Assert.assertNull(pool.acquire());
+        
+        pool.setMissPolicy(MissPolicy.THROW);
+        try {
+            pool.acquire();
+            Assert.fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+            // Pool exhausted
+        }
+        Assert.assertEquals("Refused misses must not allocate", created, createdCount.get());
+        
+        pool.setMissPolicy(MissPolicy.allocateUpTo(1));
+        Assert.assertNotNull(pool.acquire());
+        try {
+            pool.acquire();
+            Assert.fail("Expected IllegalStateException at the allocation limit");
+        } catch (IllegalStateException expected) {
+            // Limit reached
+        }
+        Assert.assertEquals(created + 1, createdCount.get());
+    }
+    
+    @Test
+    public void testDropHandler() {
+        AtomicInteger disposed = new AtomicInteger();
+        pool.setDropHandler(obj -> disposed.incrementAndGet());
+        
+        // Every stripe starts full, so each release is dropped
+        Assert.assertFalse(pool.release(new TestObject()));
+        TestObject[] extras = {new TestObject(), new TestObject()};
+        Assert.assertEquals(0, pool.releaseBatch(extras, 2));
+        
+        Assert.assertEquals(3, pool.droppedCount());
+        Assert.assertEquals(3, disposed.get());
+        Assert.assertEquals("Dropped objects are reset before the handler sees them", 3, resetCount.get());
+    }
+    
+    @Test
+    public void testMagazines() {
+        StripedObjectPool<TestObject> single = new StripedObjectPool<>(TestObject::new, TestObject::reset, 1, 8);
+        single.enableMagazines(4);
+        Assert.assertEquals(4, single.magazineSize());
+        
+        TestObject obj = single.acquire();
+        single.release(obj);
+        Assert.assertSame("Magazine should hand back the object just released", obj, single.acquire());
+        
+        // The first acquire refilled half a magazine; the rest is still in the stripe
+        TestObject[] stripe = new TestObject[8];
+        Assert.assertEquals(6, single.acquireBatch(stripe, 8));
+        Assert.assertEquals(6, single.releaseBatch(stripe, 6));
+        
+        single.release(obj);
+        single.disableMagazines();
+        Assert.assertEquals(0, single.magazineSize());
+        Assert.assertEquals("Flushed magazine should be back in the stripe", 8, single.acquireBatch(stripe, 8));
+    }
+    
+    @Test
+    public void testMagazineSpillsToStripes() {
+        StripedObjectPool<TestObject> single = new StripedObjectPool<>(TestObject::new, null, 1, 8, PoolMode.FIFO, Prefill.LAZY);
+        single.enableMagazines(4);
+        
+        TestObject[] objects = new TestObject[6];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = new TestObject();
+            Assert.assertTrue(single.release(objects[i]));
+        }
+        
+        // Five releases filled the magazine and spilled its older half to the stripe
+        single.disableMagazines();
+        TestObject[] drained = new TestObject[8];
+        Assert.assertEquals(6, single.acquireBatch(drained, 8));
+        Assert.assertSame(objects[0], drained[0]);
+        Assert.assertSame(objects[1], drained[1]);
+        Assert.assertEquals(0, single.droppedCount());
+    }
+    
+    @Test
+    public void testMagazineReleaseReportsSpillDrops() {
+        StripedObjectPool<TestObject> full = new StripedObjectPool<>(TestObject::new, null, 1, 4);
+        full.enableMagazines(2);
+        Assert.assertTrue(full.release(new TestObject()));
+        Assert.assertTrue(full.release(new TestObject()));
+        
+        // The magazine is full and so is the stripe, so the spill drops the older object
+        Assert.assertFalse(full.release(new TestObject()));
+        Assert.assertEquals(1, full.droppedCount());
+    }
+    
+    @Test
+    public void testConcurrentMagazines() throws InterruptedException {
+        pool.enableMagazines(8);
+        Set<TestObject> inUse = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY_LEVEL);
+        CountDownLatch doneLatch = new CountDownLatch(CONCURRENCY_LEVEL);
+        
+        for (int i = 0; i < CONCURRENCY_LEVEL; i++) {
+            executor.submit(() -> {
+                try {
+                    for (int j = 0; j < OPERATIONS_PER_THREAD; j++) {
+                        TestObject a = pool.acquire();
+                        TestObject b = pool.acquire();
+                        if (!inUse.add(a) || !inUse.add(b)) {
+                            duplicates.incrementAndGet();
+                        }
+                        inUse.remove(a);
+                        inUse.remove(b);
+                        pool.release(b);
+                        pool.release(a);
+                    }
+                    pool.flushMagazine();
+                } finally {
+                    doneLatch.countDown();
+                }
+            });
+        }
+        
+        Assert.assertTrue(doneLatch.await(60, TimeUnit.SECONDS));
+        executor.shutdown();
+        Assert.assertEquals("An object was handed to two threads at once", 0, duplicates.get());
+    }
+    
+    @Test
+    public void testEveryStripeReachableAfterGrowth() throws InterruptedException {
+        // 4 + 1 = 5 and 4 + 3 = 7 stripes are not powers of two
+        for (int added : new int[] {1, 3}) {
+            StripedObjectPool<TestObject> grown = new StripedObjectPool<>(TestObject::new, null, 4, 1);
+            grown.addStripes(added);
+            int stripes = grown.stripeCount();
+            
+            int capacity = grown.totalCapacity();
+            
+            // Threads with different probes start on different stripes; between them they must
+            // drain every stripe
+            Set<TestObject> drained = ConcurrentHashMap.newKeySet();
+            for (int t = 0; t < 64 && drained.size() < capacity; t++) {
+                Thread thread = new Thread(() -> {
+                    TestObject obj;
+                    while ((obj = grown.tryAcquire()) != null) {
+                        drained.add(obj);
+                    }
+                });
+                thread.start();
+                thread.join();
+            }
+            Assert.assertEquals("Every stripe should serve traffic with " + stripes + " stripes",
+                capacity, drained.size());
+        }
+    }
+    
+    @Test
+    public void testNoMissOrDropWhileOtherStripesHaveRoom() {
+        AtomicInteger created = new AtomicInteger();
+        StripedObjectPool<TestObject> wide = new StripedObjectPool<>(() -> {
+            created.incrementAndGet();
+            return new TestObject();
+        }, null, 16, 4);
+        int capacity = wide.totalCapacity();
+        
+        // One thread probes only a few stripes, but must still drain all of them before allocating
+        TestObject[] held = new TestObject[capacity];
+        for (int i = 0; i < capacity; i++) {
+            held[i] = wide.acquire();
+        }
+        Assert.assertEquals("Acquire allocated while idle objects were pooled", capacity, created.get());
+        Assert.assertNull(wide.tryAcquire());
+        
+        for (TestObject obj : held) {
+            Assert.assertTrue("Release dropped while stripes had room", wide.release(obj));
+        }
+        Assert.assertFalse(wide.release(new TestObject()));
+        Assert.assertEquals(1, wide.droppedCount());
+    }
+    
+    @Test
+    public void testOccupancyFindsLastStripes() {
+        // 200 single-object stripes: once most are drained, acquire must still find the rest
+        StripedObjectPool<TestObject> wide = new StripedObjectPool<>(TestObject::new, null, 200, 1, PoolMode.LIFO);
+        int capacity = wide.totalCapacity();
+        TestObject[] held = new TestObject[capacity];
+        for (int i = 0; i < capacity; i++) {
+            held[i] = wide.tryAcquire();
+            Assert.assertNotNull("Stripe " + i + " of " + capacity + " not found", held[i]);
+        }
+        Assert.assertNull(wide.tryAcquire());
+        
+        // Likewise every release must find the remaining empty stripes before dropping
+        for (int i = 0; i < capacity; i++) {
+            Assert.assertTrue(wide.release(held[i]));
+        }
+        Assert.assertFalse(wide.release(new TestObject()));
+        Assert.assertEquals(1, wide.droppedCount());
+    }
+    
+    @Test
+    public void testRemoveStripes() {
+        AtomicInteger disposed = new AtomicInteger();
+        pool.setDropHandler(obj -> disposed.incrementAndGet());
+        pool.addStripes(2);
+        int stripes = pool.stripeCount();
+        
+        pool.removeStripes(2);
+        Assert.assertEquals(stripes - 2, pool.stripeCount());
+        Assert.assertEquals("Retired stripes should be drained to the disposer", 2 * STRIPE_SIZE, disposed.get());
+        Assert.assertEquals("Retiring is not a dropped release", 0, pool.droppedCount());
+        
+        pool.removeStripes(stripes);
+        Assert.assertEquals("At least one stripe is kept", 1, pool.stripeCount());
+        Assert.assertNotNull(pool.acquire());
+    }
+    
+    @Test
+    public void testAutoShrinkWhenIdle() throws InterruptedException {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            pool.addStripes(4);
+            pool.enableAutoShrink(executor, new ShrinkConfig(10, 2, 2));
+            Assert.assertTrue(pool.isAutoShrinkEnabled());
+            
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (pool.stripeCount() > 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals("Idle pool should shrink to minStripes", 2, pool.stripeCount());
+            
+            pool.disableAutoShrink();
+            Assert.assertFalse(pool.isAutoShrinkEnabled());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    public void testNoObjectLostAcrossShrinkAndGrowth() throws InterruptedException {
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger disposed = new AtomicInteger();
+        StripedObjectPool<TestObject> resized = new StripedObjectPool<>(() -> {
+            created.incrementAndGet();
+            return new TestObject();
+        }, null, 4, 4);
+        resized.setDropHandler(obj -> disposed.incrementAndGet());
+        
+        int workers = 8;
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch doneLatch = new CountDownLatch(workers);
+        ExecutorService executor = Executors.newFixedThreadPool(workers + 1);
+        for (int i = 0; i < workers; i++) {
+            executor.submit(() -> {
+                try {
+                    TestObject[] held = new TestObject[3];
+                    while (running.get()) {
+                        for (int j = 0; j < held.length; j++) {
+                            held[j] = resized.acquire();
+                        }
+                        for (TestObject obj : held) {
+                            resized.release(obj);
+                        }
+                    }
+                } finally {
+                    doneLatch.countDown();
+                }
+            });
+        }
+        executor.submit(() -> {
+            for (int round = 0; round < 500; round++) {
+                resized.addStripes(2);
+                Thread.yield();
+                resized.removeStripes(2);
+            }
+            running.set(false);
+        });
+        
+        Assert.assertTrue(doneLatch.await(60, TimeUnit.SECONDS));
+        executor.shutdown();
+        
+        int pooled = 0;
+        while (resized.tryAcquire() != null) {
+            pooled++;
+        }
+        Assert.assertEquals("Every object must be pooled or disposed, none stranded in a retired stripe",
+            created.get(), pooled + disposed.get());
+    }
+    
+    @Test
+    public void testGeometricGrowth() {
+        pool.enableGeometricGrowth(30);
+        Assert.assertTrue(pool.isGeometricGrowthEnabled());
+        
+        pool.addStripes(4); // 8, 16, 32, 32
+        Assert.assertEquals(INITIAL_STRIPES + 4, pool.stripeCount());
+        Assert.assertEquals(INITIAL_STRIPES * STRIPE_SIZE + 8 + 16 + 32 + 32, pool.totalCapacity());
+        Assert.assertEquals("Base stripe size is unchanged", STRIPE_SIZE, pool.stripeSize());
+        
+        pool.disableGeometricGrowth();
+        pool.addStripes(1);
+        Assert.assertEquals(INITIAL_STRIPES * STRIPE_SIZE + 8 + 16 + 32 + 32 + STRIPE_SIZE, pool.totalCapacity());
+    }
+    
+    @Test
+    public void testEnsureCapacityWithGeometricGrowth() {
+        pool.enableGeometricGrowth(1024);
+        pool.ensureCapacity(1000);
+        
+        Assert.assertTrue(pool.totalCapacity() >= 1000);
+        // 8 + 16 + ... + 512 covers the missing 992 slots with 7 stripes instead of 248
+        Assert.assertEquals(INITIAL_STRIPES + 7, pool.stripeCount());
+    }
+    
+    @Test
+    public void testEverySlotUsableWithUnequalStripes() {
+        pool.enableGeometricGrowth(64);
+        pool.addStripes(3);
+        int capacity = pool.totalCapacity();
+        
+        List<TestObject> held = new ArrayList<>();
+        for (int i = 0; i < capacity; i++) {
+            TestObject obj = pool.tryAcquire();
+            Assert.assertNotNull("Every prefilled object should be reachable", obj);
+            held.add(obj);
+        }
+        Assert.assertNull(pool.tryAcquire());
+        
+        for (TestObject obj : held) {
+            pool.release(obj);
+        }
+        Assert.assertEquals(0, pool.droppedCount());
+        pool.release(new TestObject());
+        Assert.assertEquals(1, pool.droppedCount());
+    }
+    
+    @Test
+    public void testEveryProbeStrategyReachesAllStripes() {
+        for (ProbeStrategy strategy : ProbeStrategy.values()) {
+            StripedObjectPool<TestObject> probed = new StripedObjectPool<>(TestObject::new, null, 8, STRIPE_SIZE);
+            probed.setProbeStrategy(strategy);
+            probed.setProbeLimit(2);
+            Assert.assertEquals(strategy, probed.probeStrategy());
+            
+            List<TestObject> held = new ArrayList<>();
+            TestObject obj;
+            while ((obj = probed.tryAcquire()) != null) {
+                held.add(obj);
+            }
+            Assert.assertEquals(strategy + " should drain every stripe", probed.totalCapacity(), held.size());
+            
+            for (TestObject o : held) {
+                Assert.assertTrue(strategy + " should fill every stripe", probed.release(o));
+            }
+            Assert.assertFalse(probed.release(new TestObject()));
+        }
+    }
+    
+    @Test
+    public void testProbeLimitMustBePositive() {
+        Assert.assertEquals(3, pool.probeLimit());
+        try {
+            pool.setProbeLimit(0);
+            Assert.fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            // Expected
+        }
+    }
+    
+    @Test
+    public void testRebalanceMovesObjectsToEmptyStripes() {
+        StripedObjectPool<TestObject> skewed = new StripedObjectPool<>(TestObject::new, null, 4, 8,
+            PoolMode.FIFO, Prefill.LAZY);
+        for (int i = 0; i < 8; i++) {
+            skewed.release(new TestObject()); // Fills the releasing thread's stripe
+        }
+        
+        RebalanceConfig config = new RebalanceConfig(10, 25, 75, 8);
+        Assert.assertEquals("Half of the full stripe should move", 4, skewed.rebalance(config));
+        Assert.assertEquals(4, skewed.rebalancedCount());
+        Assert.assertEquals("Both stripes are now between the watermarks", 0, skewed.rebalance(config));
+        
+        int pooled = 0;
+        while (skewed.tryAcquire() != null) {
+            pooled++;
+        }
+        Assert.assertEquals(8, pooled);
+    }
+    
+    @Test
+    public void testBackgroundRebalancing() throws InterruptedException {
+        StripedObjectPool<TestObject> skewed = new StripedObjectPool<>(TestObject::new, null, 4, 8,
+            PoolMode.FIFO, Prefill.LAZY);
+        for (int i = 0; i < 8; i++) {
+            skewed.release(new TestObject());
+        }
+        
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            skewed.enableRebalancing(executor, RebalanceConfig.withDefaults(8));
+            Assert.assertTrue(skewed.isRebalancingEnabled());
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (skewed.rebalancedCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            Assert.assertTrue(skewed.rebalancedCount() > 0);
+            skewed.disableRebalancing();
+            Assert.assertFalse(skewed.isRebalancingEnabled());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    public void testRebalanceNeedsMultiConsumerStripes() {
+        StripedObjectPool<TestObject> spsc = new StripedObjectPool<>(TestObject::new, null, 2, 8, PoolMode.SPSC);
+        try {
+            spsc.rebalance(RebalanceConfig.withDefaults(8));
+            Assert.fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+            // Expected
+        }
+    }
+    
+    @Test
+    public void testShrinkNeedsMultiConsumerStripes() {
+        StripedObjectPool<TestObject> mpsc = new StripedObjectPool<>(TestObject::new, null, 4, 8, PoolMode.MPSC);
+        try {
+            mpsc.removeStripes(1);
+            Assert.fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+            // Draining a retired stripe would be a second consumer
+        }
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            mpsc.enableAutoShrink(scheduler, ShrinkConfig.withDefaults(1));
+            Assert.fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+            // Expected
+        } finally {
+            scheduler.shutdownNow();
+        }
+        Assert.assertFalse(mpsc.isAutoShrinkEnabled());
+        
+        Assert.assertEquals("Trimming should leave single-consumer stripes alone", 0, mpsc.trim(100));
+        Assert.assertEquals(4, mpsc.stripeCount());
+    }
+    
+    @Test
+    public void testPoolableReturnsToHomeStripe() throws Exception {
+        StripedObjectPool<HomedObject> homed = new StripedObjectPool<>(HomedObject::new, null, 8, 4, PoolMode.LIFO);
+        HomedObject first = homed.acquire();
+        HomedObject second = homed.acquire();
+        Assert.assertTrue("Acquire should record the home stripe", first.homeStripe() > 0);
+        Assert.assertEquals(first.homeStripe(), second.homeStripe());
+        
+        // Another thread, on a different stripe, takes two objects and releases ours
+        ExecutorService other = null;
+        for (int attempt = 0; other == null && attempt < 32; attempt++) {
+            ExecutorService candidate = Executors.newSingleThreadExecutor();
+            HomedObject probe = candidate.submit(() -> homed.acquire()).get();
+            if (probe.homeStripe() != first.homeStripe()) {
+                other = candidate;
+            } else {
+                candidate.submit(() -> homed.release(probe)).get();
+                candidate.shutdown();
+            }
+        }
+        Assert.assertNotNull("Some thread should hash to another stripe", other);
+        try {
+            other.submit(() -> {
+                homed.acquire();
+                Assert.assertTrue(homed.release(second));
+                Assert.assertTrue(homed.release(first));
+            }).get();
+        } finally {
+            other.shutdown();
+        }
+        
+        Assert.assertSame("Released objects should be back on top of their home stripe", first, homed.acquire());
+        Assert.assertSame(second, homed.acquire());
+        Assert.assertEquals(0, homed.droppedCount());
+    }
+    
     @Test
     public void testConcurrentAcquireRelease() throws InterruptedException {
         ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY_LEVEL);
@@ -361,6 +972,7 @@ public class StripedObjectPoolTest {
         // Enable auto-grow with aggressive settings
         AutoGrowConfig config = new AutoGrowConfig(1, 10, 2, 10);
         smallPool.enableAutoGrow(config);
+        smallPool.setGrowthExecutor(StripedObjectPool.INLINE_GROWTH); // Count decisions synchronously
         
         Assert.assertTrue(smallPool.isAutoGrowEnabled());
         Assert.assertEquals(1, smallPool.stripeCount());
@@ -406,6 +1018,7 @@ public class StripedObjectPoolTest {
         // Enable auto-grow with max stripes limit
         AutoGrowConfig config = new AutoGrowConfig(1, 5, 1, 3);
         pool.enableAutoGrow(config);
+        pool.setGrowthExecutor(StripedObjectPool.INLINE_GROWTH); // Count decisions synchronously
         
         // Hammer the pool to trigger growth
         ExecutorService executor = Executors.newFixedThreadPool(8);
@@ -445,6 +1058,7 @@ public class StripedObjectPoolTest {
         // Enable auto-grow with short cooldown
         AutoGrowConfig config = new AutoGrowConfig(1, 100, 1, 0);
         pool.enableAutoGrow(config);
+        pool.setGrowthExecutor(StripedObjectPool.INLINE_GROWTH); // Count decisions synchronously
         
         int initialStripes = pool.stripeCount();
         
@@ -489,6 +1103,7 @@ public class StripedObjectPoolTest {
         // Enable auto-grow with high threshold
         AutoGrowConfig config = new AutoGrowConfig(1, 10, 10, 0);
         pool.enableAutoGrow(config);
+        pool.setGrowthExecutor(StripedObjectPool.INLINE_GROWTH); // Count decisions synchronously
         
         int initialStripes = pool.stripeCount();
         
@@ -518,6 +1133,86 @@ public class StripedObjectPoolTest {
             initialStripes, pool.stripeCount());
     }
     
+    @Test
+    public void testGrowthRunsOnGrowthExecutor() {
+        AtomicInteger created = new AtomicInteger();
+        StripedObjectPool<TestObject> pool = new StripedObjectPool<>(() -> {
+            created.incrementAndGet();
+            return new TestObject();
+        }, null, 1, 2);
+        List<Runnable> pending = new ArrayList<>();
+        pool.setGrowthExecutor(pending::add);
+        pool.enableAutoGrow(new AutoGrowConfig(2, 0, 1, 0));
+        
+        pool.acquire();
+        pool.acquire();
+        pool.acquire(); // Miss: allocates its own object and hands growth off
+        Assert.assertEquals("The missing thread only creates its own object", 3, created.get());
+        Assert.assertEquals(1, pool.stripeCount());
+        Assert.assertEquals(1, pending.size());
+        
+        pool.acquire();
+        Assert.assertEquals("No second growth while one is pending", 1, pending.size());
+        
+        pending.remove(0).run();
+        Assert.assertEquals(3, pool.stripeCount());
+        Assert.assertEquals("New stripes are filled by the growth task", 4 + 4, created.get());
+        Assert.assertNotNull(pool.tryAcquire());
+    }
+    
+    @Test
+    public void testGrowthRecoversFromDroppedTask() throws Exception {
+        StripedObjectPool<TestObject> pool = new StripedObjectPool<>(TestObject::new, null, 1, 2);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch blocked = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        pool.setGrowthExecutor(executor);
+        pool.enableAutoGrow(new AutoGrowConfig(1, 0, 1, 0));
+        
+        pool.acquire();
+        pool.acquire();
+        pool.acquire(); // Miss: the resize is queued behind the blocked task
+        Assert.assertEquals(1, executor.shutdownNow().size());
+        Assert.assertEquals("The dropped resize never ran", 1, pool.stripeCount());
+        
+        pool.acquire(); // Miss: the dropped resize must not stall growth
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (pool.stripeCount() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        Assert.assertEquals("The next resize should go to the shared builder", 2, pool.stripeCount());
+    }
+    
+    @Test
+    public void testGrowthBuildsOffTheAcquiringThread() throws Exception {
+        Set<Thread> factoryThreads = ConcurrentHashMap.newKeySet();
+        StripedObjectPool<TestObject> pool = new StripedObjectPool<>(() -> {
+            factoryThreads.add(Thread.currentThread());
+            return new TestObject();
+        }, null, 1, 2);
+        pool.setMissPolicy(MissPolicy.RETURN_NULL);
+        pool.enableAutoGrow(new AutoGrowConfig(1, 0, 1, 0));
+        factoryThreads.clear();
+        
+        pool.acquire();
+        pool.acquire();
+        Assert.assertNull(pool.acquire()); // Miss: triggers growth
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (pool.stripeCount() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        Assert.assertEquals(2, pool.stripeCount());
+        Assert.assertFalse("The new stripe should not be built on the acquiring thread",
+            factoryThreads.contains(Thread.currentThread()));
+        Assert.assertFalse(factoryThreads.isEmpty());
+    }
+    
     @Test
     public void testAutoGrowEnableDisable() {
         StripedObjectPool<TestObject> pool = new StripedObjectPool<>(
@@ -589,6 +1284,7 @@ public class StripedObjectPoolTest {
         // Enable auto-grow with instant growth (cooldown = 0) and low threshold
         AutoGrowConfig config = new AutoGrowConfig(1, 0, 1, 0);
         pool.enableAutoGrow(config);
+        pool.setGrowthExecutor(StripedObjectPool.INLINE_GROWTH); // Count decisions synchronously
         
         Assert.assertEquals("cooldownMillis should be 0", 0, config.cooldownMillis);
         
@@ -684,4 +1380,21 @@ public class StripedObjectPoolTest {
             this.value = value;
         }
     }
+    
+    /**
+     * Test object that records its home stripe.
+     */
+    private static class HomedObject implements Poolable {
+        private int homeStripe;
+        
+        @Override
+        public int homeStripe() {
+            return homeStripe;
+        }
+        
+        @Override
+        public void setHomeStripe(int homeStripe) {
+            this.homeStripe = homeStripe;
+        }
+    }
 }
@@ -0,0 +1,81 @@
+package com.suko.pool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests for the unsynchronized ThreadConfinedPool.
+ */
+public class ThreadConfinedPoolTest {
+
+    @Test
+    public void testAcquireReleaseLifo() {
+        AtomicInteger resets = new AtomicInteger();
+        ThreadConfinedPool<Object> pool = new ThreadConfinedPool<>(Object::new, obj -> resets.incrementAndGet(), 4);
+        Assert.assertEquals(4, pool.size());
+
+        Object a = pool.acquire();
+        Object b = pool.acquire();
+        Assert.assertEquals(2, pool.size());
+        Assert.assertTrue(pool.release(a));
+        Assert.assertTrue(pool.release(b));
+        Assert.assertEquals(2, resets.get());
+        Assert.assertSame("Most recently released object should be reused first", b, pool.tryAcquire());
+    }
+
+    @Test
+    public void testEmptyAndFull() {
+        ThreadConfinedPool<Object> pool = new ThreadConfinedPool<>(Object::new, null, 2, Prefill.LAZY);
+        Assert.assertEquals(0, pool.size());
+        Assert.assertNull(pool.tryAcquire());
+        Assert.assertNotNull(pool.acquire());
+
+        Assert.assertTrue(pool.release(new Object()));
+        Assert.assertTrue(pool.release(new Object()));
+        Assert.assertFalse("Full pool should drop releases", pool.release(new Object()));
+    }
+
+    @Test
+    public void testBatch() {
+        ThreadConfinedPool<Object> pool = new ThreadConfinedPool<>(Object::new, null, 8);
+        Object[] batch = new Object[16];
+        Assert.assertEquals(8, pool.acquireBatch(batch, 16));
+        Assert.assertEquals(0, pool.size());
+
+        Object[] more = new Object[10];
+        System.arraycopy(batch, 0, more, 0, 8);
+        more[8] = new Object();
+        more[9] = new Object();
+        Assert.assertEquals("Only the free slots should be filled", 8, pool.releaseBatch(more, 10));
+        Assert.assertEquals(8, pool.size());
+    }
+
+    @Test
+    public void testOwnerCheckWhenAssertionsEnabled() throws InterruptedException {
+        boolean assertionsEnabled = false;
+        assert assertionsEnabled = true;
+        if (!assertionsEnabled) {
+            return; // The owner check only runs with -ea
+        }
+
+        ThreadConfinedPool<Object> pool = new ThreadConfinedPool<>(Object::new, null, 4);
+        pool.release(pool.acquire()); // Binds the pool to this thread
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread other = new Thread(() -> {
+            try {
+                pool.acquire();
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        other.start();
+        other.join();
+
+        Assert.assertTrue("Use from another thread should be rejected",
+            failure.get() instanceof IllegalStateException);
+    }
+}
@@ -0,0 +1,63 @@
+package com.suko.pool.bench;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntFunction;
+
+/**
+ * Minimal fixed-duration throughput harness shared by the benchmarks in this package.
+ */
+final class Bench {
+
+    private Bench() {}
+
+    /**
+     * Runs one operation per thread in a tight loop for the given duration.
+     *
+     * @param threads the number of threads
+     * @param durationMillis how long to measure
+     * @param operations creates the operation for thread {@code i}
+     * @return the total throughput in operations per second
+     */
+    static double measure(int threads, long durationMillis, IntFunction<Runnable> operations)
+            throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        long[] counts = new long[threads * 16]; // One padded counter per thread
+        Thread[] workers = new Thread[threads];
+
+        for (int i = 0; i < threads; i++) {
+            Runnable op = operations.apply(i);
+            int slot = i * 16;
+            workers[i] = new Thread(() -> {
+                try {
+                    startLatch.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long n = 0;
+                while (running.get()) {
+                    op.run();
+                    n++;
+                }
+                counts[slot] = n;
+            });
+            workers[i].start();
+        }
+
+        long start = System.nanoTime();
+        startLatch.countDown();
+        Thread.sleep(durationMillis);
+        running.set(false);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long total = 0;
+        for (int i = 0; i < threads; i++) {
+            total += counts[i * 16];
+        }
+        return total * 1e9 / elapsed;
+    }
+}
@@ -0,0 +1,164 @@
+package com.suko.pool.bench;
+
+import com.suko.pool.ObjectPool;
+import com.suko.pool.Pool;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.IntFunction;
+
+/**
+ * Throughput of the padded ObjectPool layout against the same ring without padding, at 2-32
+ * threads.
+ *
+ * <p>Two scenarios are measured:
+ * <ul>
+ * <li><b>shared</b>: all threads acquire/release on one pool, so head and tail are hammered by
+ * everyone and false sharing between them adds to the true sharing on each counter</li>
+ * <li><b>per-thread</b>: each thread owns a pool allocated back-to-back with the others, as the
+ * stripes of a StripedObjectPool are, so any slowdown is pure false sharing between pools</li>
+ * </ul>
+ *
+ * <p>Run with {@code java -cp target/classes:target/test-classes com.suko.pool.bench.PaddingBenchmark
+ * [durationMillis]}.
+ */
+public final class PaddingBenchmark {
+
+    private static final int[] THREAD_COUNTS = {2, 4, 8, 16, 32};
+    private static final int POOL_SIZE = 64;
+
+    public static void main(String[] args) throws InterruptedException {
+        long durationMillis = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+
+        // Warm up both implementations before measuring
+        runShared(PaddingBenchmark::padded, 4, durationMillis);
+        runShared(UnpaddedRing::new, 4, durationMillis);
+
+        System.out.printf("%-12s %8s %16s %16s %8s%n", "scenario", "threads", "unpadded ops/s", "padded ops/s", "ratio");
+        for (int threads : THREAD_COUNTS) {
+            double unpadded = runShared(UnpaddedRing::new, threads, durationMillis);
+            double padded = runShared(PaddingBenchmark::padded, threads, durationMillis);
+            print("shared", threads, unpadded, padded);
+        }
+        for (int threads : THREAD_COUNTS) {
+            double unpadded = runPerThread(UnpaddedRing::new, threads, durationMillis);
+            double padded = runPerThread(PaddingBenchmark::padded, threads, durationMillis);
+            print("per-thread", threads, unpadded, padded);
+        }
+    }
+
+    private static double runShared(IntFunction<Pool<Object>> factory, int threads, long durationMillis)
+            throws InterruptedException {
+        Pool<Object> pool = factory.apply(POOL_SIZE);
+        return Bench.measure(threads, durationMillis, i -> () -> {
+            Object obj = pool.acquire();
+            pool.release(obj);
+        });
+    }
+
+    private static double runPerThread(IntFunction<Pool<Object>> factory, int threads, long durationMillis)
+            throws InterruptedException {
+        @SuppressWarnings("unchecked")
+        Pool<Object>[] pools = new Pool[threads];
+        for (int i = 0; i < threads; i++) {
+            pools[i] = factory.apply(POOL_SIZE);
+        }
+        return Bench.measure(threads, durationMillis, i -> {
+            Pool<Object> pool = pools[i];
+            return () -> {
+                Object obj = pool.acquire();
+                pool.release(obj);
+            };
+        });
+    }
+
+    private static void print(String scenario, int threads, double unpadded, double padded) {
+        System.out.printf("%-12s %8d %16.0f %16.0f %8.2f%n", scenario, threads, unpadded, padded, padded / unpadded);
+    }
+
+    private static Pool<Object> padded(int size) {
+        return new ObjectPool<>(Object::new, null, size);
+    }
+
+    /**
+     * The ObjectPool ring with its pre-padding field layout: head, tail and the read-only
+     * fields share cache lines with each other and with neighbouring objects.
+     */
+    private static final class UnpaddedRing implements Pool<Object> {
+        private static final VarHandle HEAD, TAIL, SEQUENCE;
+
+        static {
+            try {
+                MethodHandles.Lookup l = MethodHandles.lookup();
+                HEAD = l.findVarHandle(UnpaddedRing.class, "head", long.class);
+                TAIL = l.findVarHandle(UnpaddedRing.class, "tail", long.class);
+                SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final Object[] pool;
+        private final long[] sequences;
+        private final int mask;
+
+        @SuppressWarnings("unused") // Used by VarHandle
+        private volatile long head;
+        @SuppressWarnings("unused") // Used by VarHandle
+        private volatile long tail;
+
+        UnpaddedRing(int size) {
+            pool = new Object[size];
+            sequences = new long[size];
+            mask = size - 1;
+            for (int i = 0; i < size; i++) {
+                pool[i] = new Object();
+                sequences[i] = i + 1L;
+            }
+            tail = size;
+        }
+
+        @Override
+        public Object acquire() {
+            long currentHead = (long) HEAD.getVolatile(this);
+            while (true) {
+                int index = (int) (currentHead & mask);
+                long diff = (long) SEQUENCE.getAcquire(sequences, index) - (currentHead + 1);
+                if (diff == 0) {
+                    if (HEAD.compareAndSet(this, currentHead, currentHead + 1)) {
+                        Object object = pool[index];
+                        pool[index] = null;
+                        SEQUENCE.setRelease(sequences, index, currentHead + mask + 1);
+                        return object;
+                    }
+                    currentHead = (long) HEAD.getVolatile(this);
+                } else if (diff < 0 && currentHead >= (long) TAIL.getVolatile(this)) {
+                    return new Object();
+                } else {
+                    currentHead = (long) HEAD.getVolatile(this);
+                }
+            }
+        }
+
+        @Override
+        public boolean release(Object object) {
+            long currentTail = (long) TAIL.getVolatile(this);
+            while (true) {
+                int index = (int) (currentTail & mask);
+                long diff = (long) SEQUENCE.getAcquire(sequences, index) - currentTail;
+                if (diff == 0) {
+                    if (TAIL.compareAndSet(this, currentTail, currentTail + 1)) {
+                        pool[index] = object;
+                        SEQUENCE.setRelease(sequences, index, currentTail + 1);
+                        return true;
+                    }
+                    currentTail = (long) TAIL.getVolatile(this);
+                } else if (diff < 0 && currentTail - (long) HEAD.getVolatile(this) >= pool.length) {
+                    return false;
+                } else {
+                    currentTail = (long) TAIL.getVolatile(this);
+                }
+            }
+        }
+    }
+}
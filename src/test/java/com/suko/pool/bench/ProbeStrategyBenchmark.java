@@ -0,0 +1,120 @@
+package com.suko.pool.bench;
+
+import com.suko.pool.Prefill;
+import com.suko.pool.ProbeStrategy;
+import com.suko.pool.SpscObjectPool;
+import com.suko.pool.StripedObjectPool;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput and miss rate of each {@link ProbeStrategy} at 2-32 threads.
+ *
+ * <p>Two workloads are measured:
+ * <ul>
+ * <li><b>balanced</b>: every thread acquires and immediately releases, so each thread finds
+ * its objects where it left them</li>
+ * <li><b>skewed</b>: threads come in consumer/producer pairs; the consumer acquires and hands
+ * the object to its producer over an SPSC ring, and the producer releases it, so objects pile
+ * up in the producers' stripes while the consumers' stripes run dry</li>
+ * </ul>
+ * Every loop iteration counts as an operation, including a producer poll that found its ring
+ * empty, so compare skewed runs by misses per second: acquires that found every stripe empty
+ * and allocated.
+ *
+ * <p>Run with {@code java -cp target/classes:target/test-classes com.suko.pool.bench.ProbeStrategyBenchmark
+ * [durationMillis] [probeLimit]}.
+ */
+public final class ProbeStrategyBenchmark {
+
+    private static final int[] THREAD_COUNTS = {2, 4, 8, 16, 32};
+    private static final int STRIPES = 8;
+    private static final int STRIPE_SIZE = 64;
+    private static final int HANDOFF_SIZE = 1024;
+
+    public static void main(String[] args) throws InterruptedException {
+        long durationMillis = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        int probeLimit = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        // Warm up every strategy before measuring
+        for (ProbeStrategy strategy : ProbeStrategy.values()) {
+            run(strategy, probeLimit, false, 4, durationMillis);
+            run(strategy, probeLimit, true, 4, durationMillis);
+        }
+
+        System.out.printf("%-10s %-11s %8s %16s %14s%n", "workload", "strategy", "threads", "ops/s", "misses/s");
+        for (boolean skewed : new boolean[] {false, true}) {
+            for (int threads : THREAD_COUNTS) {
+                for (ProbeStrategy strategy : ProbeStrategy.values()) {
+                    run(strategy, probeLimit, skewed, threads, durationMillis).print();
+                }
+            }
+        }
+    }
+
+    private static Result run(ProbeStrategy strategy, int probeLimit, boolean skewed, int threads,
+                              long durationMillis) throws InterruptedException {
+        AtomicLong created = new AtomicLong();
+        StripedObjectPool<Object> pool = new StripedObjectPool<>(() -> {
+            created.incrementAndGet();
+            return new Object();
+        }, null, STRIPES, STRIPE_SIZE);
+        pool.setProbeStrategy(strategy);
+        pool.setProbeLimit(probeLimit);
+        long prefilled = created.get();
+
+        double opsPerSecond;
+        if (skewed) {
+            @SuppressWarnings("unchecked")
+            SpscObjectPool<Object>[] handoffs = new SpscObjectPool[(threads + 1) / 2];
+            for (int i = 0; i < handoffs.length; i++) {
+                handoffs[i] = new SpscObjectPool<>(Object::new, null, HANDOFF_SIZE, Prefill.LAZY);
+            }
+            opsPerSecond = Bench.measure(threads, durationMillis, i -> {
+                SpscObjectPool<Object> handoff = handoffs[i / 2];
+                if (i % 2 == 0) {
+                    return () -> {
+                        Object obj = pool.acquire();
+                        if (!handoff.release(obj)) {
+                            pool.release(obj); // Producer is behind
+                        }
+                    };
+                }
+                return () -> {
+                    Object obj = handoff.tryAcquire();
+                    if (obj != null) {
+                        pool.release(obj);
+                    }
+                };
+            });
+        } else {
+            opsPerSecond = Bench.measure(threads, durationMillis, i -> () -> {
+                Object obj = pool.acquire();
+                pool.release(obj);
+            });
+        }
+        long misses = created.get() - prefilled;
+        return new Result(skewed ? "skewed" : "balanced", strategy, threads, opsPerSecond,
+            misses * 1000.0 / durationMillis);
+    }
+
+    private static final class Result {
+        final String workload;
+        final ProbeStrategy strategy;
+        final int threads;
+        final double opsPerSecond;
+        final double missesPerSecond;
+
+        Result(String workload, ProbeStrategy strategy, int threads, double opsPerSecond, double missesPerSecond) {
+            this.workload = workload;
+            this.strategy = strategy;
+            this.threads = threads;
+            this.opsPerSecond = opsPerSecond;
+            this.missesPerSecond = missesPerSecond;
+        }
+
+        void print() {
+            System.out.printf("%-10s %-11s %8d %16.0f %14.0f%n", workload, strategy, threads, opsPerSecond, missesPerSecond);
+        }
+    }
+}